@@ -0,0 +1,690 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import geometries.Intersectable.Hit;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounding volume hierarchy (BVH) over a list of intersectables.
+ * The tree is a {@link FlatTree} over the boxes of the geometries - built by the binned surface area
+ * heuristic (SAH), so a ray is tested only against the geometries near to it, and laid out in flat arrays,
+ * so a traversal reads the nodes sequentially instead of following references scattered over the heap,
+ * and allocates nothing.
+ * The hierarchy may also be traversed through wide nodes: each wide node holds the boxes of up to
+ * {@link FlatNodes#WIDTH} children (collapsed from two levels of the binary tree) as structure of arrays
+ * lanes, so a ray tests all the children of a node in one tight loop and visits half the levels.
+ * Geometries without a bounding box (like an infinite plane) are kept aside and always tested.
+ * When geometries move, the boxes of the hierarchy can be refitted to them instead of rebuilding it.
+ */
+class BVH {
+    /**
+     * The maximal number of geometries in a leaf that is not worth splitting
+     */
+    private static final int MAX_LEAF_SIZE = 4;
+    /**
+     * The ratio of the SAH cost of a refitted hierarchy to its cost when it was built,
+     * from which the hierarchy is considered degraded and should be rebuilt
+     */
+    static final double MAX_REFIT_DEGRADATION = 1.5;
+
+    /**
+     * The tree of the bounded geometries
+     */
+    private final FlatTree tree;
+    /**
+     * The arrays of the tree (see {@link FlatTree}) - the leaves index {@link #leafItems}
+     */
+    private final float[] nodeBounds;
+    private final int[] nodeOffsets;
+    private final int[] nodeCounts;
+    private final int[] parents;
+    /**
+     * The boxes of the children of the wide nodes - for each wide node the minX of its children,
+     * then their minY and so on (6 * {@link FlatNodes#WIDTH} floats), null if the wide nodes are not used
+     */
+    private final float[] wideBounds;
+    /**
+     * The children of the wide nodes ({@link FlatNodes#WIDTH} for each) - the index of a wide node,
+     * the binary index of a leaf as -index-1, or {@link #EMPTY} for an unused lane
+     */
+    private final int[] wideChildren;
+    /**
+     * The lane of each binary node in the wide nodes (wide node * WIDTH + lane),
+     * -1 if the node was collapsed into its parent, to refit the wide boxes as well
+     */
+    private final int[] laneOf;
+    /**
+     * The number of wide nodes
+     */
+    private int wideNodes = 0;
+    /**
+     * The child of an unused lane of a wide node
+     */
+    private static final int EMPTY = Integer.MIN_VALUE;
+    /**
+     * The geometries of the leaves, in the order of the leaves
+     */
+    private final Intersectable[] leafItems;
+    /**
+     * The geometries that have no bounding box
+     */
+    private final Intersectable[] unbounded;
+    /**
+     * Statistics of the hierarchy - the number of geometries in the tree, of nodes and of leaves,
+     * the depth of the tree and the build time in milliseconds
+     */
+    private final int size, nodes, leaves, depth;
+    private final double buildTime;
+    /**
+     * The leaf of each geometry in the tree, to refit the boxes above the geometries that moved
+     */
+    private final Map<Intersectable, Integer> leafOf = new IdentityHashMap<>();
+    /**
+     * The sum of the surface areas of the boxes of the geometries of each leaf (0 for an inner node)
+     */
+    private final double[] leafAreas;
+    /**
+     * The sum of the SAH costs of the nodes (before dividing by an area), and the sum of the
+     * surface areas of the boxes of the geometries, kept up to date by the refits
+     */
+    private double cost = 0, itemsArea = 0;
+    /**
+     * The SAH cost of the tree when it was built
+     */
+    private final double initialCost;
+
+    /**
+     * Builds a hierarchy over the given geometries.
+     *
+     * @param geometries the geometries to build the hierarchy over
+     * @param wide       whether to traverse the hierarchy through wide nodes
+     */
+    BVH(List<Intersectable> geometries, boolean wide) {
+        long start = System.nanoTime();
+        List<Intersectable> bounded = new ArrayList<>();
+        List<Intersectable> others = new ArrayList<>();
+        for (Intersectable geometry : geometries) {
+            if (geometry.getBoundingBox() == null) others.add(geometry);
+            else bounded.add(geometry);
+        }
+        unbounded = others.toArray(new Intersectable[0]);
+
+        int n = bounded.size();
+        Intersectable[] items = bounded.toArray(new Intersectable[0]);
+        tree = new FlatTree(n, (i, box) -> {
+            BoundingBox item = items[i].getBoundingBox();
+            box[0] = item.minX;
+            box[1] = item.minY;
+            box[2] = item.minZ;
+            box[3] = item.maxX;
+            box[4] = item.maxY;
+            box[5] = item.maxZ;
+        }, MAX_LEAF_SIZE);
+        size = n;
+        nodes = tree.nodes;
+        leaves = tree.leaves;
+        depth = tree.depth;
+        nodeBounds = tree.nodeBounds;
+        nodeOffsets = tree.nodeOffsets;
+        nodeCounts = tree.nodeCounts;
+        parents = tree.parents;
+        leafItems = new Intersectable[n];
+        for (int i = 0; i < n; i++) leafItems[i] = items[tree.items[i]];
+        // map each geometry to its leaf and sum the SAH cost of the nodes
+        leafAreas = new double[nodes];
+        for (int node = 0; node < nodes; node++) {
+            if (nodeCounts[node] > 0) {
+                for (int i = nodeOffsets[node], end = i + nodeCounts[node]; i < end; i++)
+                    leafOf.put(leafItems[i], node);
+                leafAreas[node] = itemsArea(node);
+                itemsArea += leafAreas[node];
+            }
+            cost += nodeCost(node);
+        }
+        if (wide) {
+            // each wide node takes at least one inner binary node (the root may be a single leaf)
+            int capacity = Math.max(1, nodes - leaves);
+            wideBounds = new float[6 * FlatNodes.WIDTH * capacity];
+            wideChildren = new int[FlatNodes.WIDTH * capacity];
+            laneOf = new int[nodes];
+            Arrays.fill(laneOf, -1);
+            if (nodes > 0) collapse(0);
+        } else {
+            wideBounds = null;
+            wideChildren = null;
+            laneOf = null;
+        }
+        initialCost = getCost();
+        buildTime = (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Creates the wide node of a binary sub-tree - the children of the sub-tree's root are replaced by
+     * their own children (the largest first) until the wide node is full or all its children are leaves.
+     *
+     * @param node the binary root of the sub-tree
+     * @return the index of the wide node
+     */
+    private int collapse(int node) {
+        int wide = wideNodes++;
+        int[] lanes = new int[FlatNodes.WIDTH];
+        int count = 1;
+        lanes[0] = node;
+        while (count < FlatNodes.WIDTH) {
+            int largest = -1;
+            double largestArea = -1;
+            for (int lane = 0; lane < count; lane++) {
+                double area = FlatNodes.area(nodeBounds, lanes[lane]);
+                if (nodeCounts[lanes[lane]] == 0 && area > largestArea) {
+                    largest = lane;
+                    largestArea = area;
+                }
+            }
+            if (largest < 0) break;//all the children are leaves
+            int inner = lanes[largest];
+            lanes[largest] = inner + 1;
+            lanes[count++] = nodeOffsets[inner];
+        }
+        for (int lane = 0; lane < FlatNodes.WIDTH; lane++) {
+            int slot = FlatNodes.WIDTH * wide + lane;
+            if (lane < count) {
+                int child = lanes[lane];
+                laneOf[child] = slot;
+                setLane(child);
+                wideChildren[slot] = nodeCounts[child] > 0 ? -child - 1 : collapse(child);
+            } else {
+                for (int k = 0; k < 3; k++) {
+                    wideBounds[laneIndex(slot, k)] = Float.POSITIVE_INFINITY;
+                    wideBounds[laneIndex(slot, k + 3)] = Float.NEGATIVE_INFINITY;
+                }
+                wideChildren[slot] = EMPTY;
+            }
+        }
+        return wide;
+    }
+
+    /**
+     * Copies the box of a binary node to its lane in the wide nodes
+     */
+    private void setLane(int node) {
+        for (int k = 0; k < 6; k++) wideBounds[laneIndex(laneOf[node], k)] = nodeBounds[6 * node + k];
+    }
+
+    /**
+     * Returns the position of a bound (0-5 for minX..maxZ) of a lane in {@link #wideBounds}
+     */
+    private static int laneIndex(int slot, int bound) {
+        int wide = slot / FlatNodes.WIDTH, lane = slot % FlatNodes.WIDTH;
+        return FlatNodes.WIDTH * (6 * wide + bound) + lane;
+    }
+
+    /**
+     * Returns the part of a node in the SAH cost of the tree (not divided by an area)
+     */
+    private double nodeCost(int node) {
+        return FlatNodes.area(nodeBounds, node) * (nodeCounts[node] == 0 ? FlatTree.TRAVERSAL_COST : nodeCounts[node]);
+    }
+
+    /**
+     * Returns the SAH cost of the tree relative to the surface areas of the geometries in it.
+     * Unlike the usual SAH cost (relative to the area of the root), it does not drop when the
+     * scene spreads out, so it measures how much the boxes of the tree grew beyond the geometries
+     * they hold - a tree whose geometries drifted apart from their neighbours costs more.
+     *
+     * @return the relative SAH cost, 0 if the tree is empty
+     */
+    double getCost() {
+        return itemsArea > 0 ? cost / itemsArea : 0;
+    }
+
+    /**
+     * Returns the statistics of the hierarchy.
+     *
+     * @return the statistics
+     */
+    Geometries.BVHStatistics getStatistics() {
+        return new Geometries.BVHStatistics(size + unbounded.length, nodes, leaves, depth, buildTime,
+                initialCost, getCost());
+    }
+
+    /**
+     * Returns the box of the root of the hierarchy.
+     *
+     * @return the box of the bounded geometries, or null if there are none
+     */
+    BoundingBox getBoundingBox() {
+        return tree.getBoundingBox();
+    }
+
+    /**
+     * Refits the boxes of the hierarchy to geometries that moved. Only the boxes on the paths
+     * from the leaves of the moved geometries towards the root are recomputed, and each path stops
+     * at the first box that does not change. The topology of the tree is kept, so it may become
+     * less efficient as the geometries move away from their original neighbours.
+     *
+     * @param moved the geometries that moved (geometries that are not in the tree are ignored)
+     * @return true if the hierarchy degraded so much that it should be rebuilt
+     */
+    boolean refit(List<Intersectable> moved) {
+        double[] box = new double[6];
+        for (Intersectable geometry : moved) {
+            Integer leaf = leafOf.get(geometry);
+            if (leaf == null) continue;
+            int node = leaf;
+            // geometries may change their size as well as move
+            double area = itemsArea(node);
+            itemsArea += area - leafAreas[node];
+            leafAreas[node] = area;
+            while (node >= 0) {
+                if (nodeCounts[node] > 0) boundItems(node, box);
+                else boundChildren(node, box);
+                double oldCost = nodeCost(node);
+                if (!FlatNodes.setBounds(nodeBounds, node, box)) break;//the boxes above do not change either
+                cost += nodeCost(node) - oldCost;
+                if (laneOf != null && laneOf[node] >= 0) setLane(node);
+                node = parents[node];
+            }
+        }
+        return getCost() > initialCost * MAX_REFIT_DEGRADATION;
+    }
+
+    /**
+     * Returns the sum of the surface areas of the boxes of the geometries of a leaf
+     */
+    private double itemsArea(int leaf) {
+        double area = 0;
+        for (int i = nodeOffsets[leaf], end = i + nodeCounts[leaf]; i < end; i++)
+            area += leafItems[i].getBoundingBox().surfaceArea();
+        return area;
+    }
+
+    /**
+     * Computes the box that bounds the geometries of a leaf
+     */
+    private void boundItems(int leaf, double[] box) {
+        double[] empty = FlatTree.emptyBox();
+        System.arraycopy(empty, 0, box, 0, 6);
+        for (int i = nodeOffsets[leaf], end = i + nodeCounts[leaf]; i < end; i++) {
+            BoundingBox item = leafItems[i].getBoundingBox();
+            if (item.minX < box[0]) box[0] = item.minX;
+            if (item.minY < box[1]) box[1] = item.minY;
+            if (item.minZ < box[2]) box[2] = item.minZ;
+            if (item.maxX > box[3]) box[3] = item.maxX;
+            if (item.maxY > box[4]) box[4] = item.maxY;
+            if (item.maxZ > box[5]) box[5] = item.maxZ;
+        }
+    }
+
+    /**
+     * Computes the box that bounds the boxes of the children of an inner node
+     */
+    private void boundChildren(int node, double[] box) {
+        int left = 6 * (node + 1), right = 6 * nodeOffsets[node];
+        for (int k = 0; k < 3; k++) {
+            box[k] = Math.min(nodeBounds[left + k], nodeBounds[right + k]);
+            box[k + 3] = Math.max(nodeBounds[left + k + 3], nodeBounds[right + k + 3]);
+        }
+    }
+
+    /**
+     * Finds all the intersections of the ray with the geometries in the hierarchy.
+     *
+     * @param ray the ray
+     * @return the intersection points, or null if there are none
+     */
+    List<GeoPoint> findGeoIntersections(Ray ray) {
+        List<GeoPoint> intersections = null;
+        for (Intersectable geometry : unbounded)
+            intersections = Geometries.addAll(intersections, geometry.findGeoIntersections(ray));
+        if (nodes == 0) return intersections;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double invDx = 1 / dir.getX(), invDy = 1 / dir.getY(), invDz = 1 / dir.getZ();
+        if (wideBounds != null)
+            return findGeoIntersectionsWide(ray, ox, oy, oz, invDx, invDy, invDz, intersections);
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            tree.start(traversal, 0);
+            for (int leaf; (leaf = tree.nextLeaf(traversal, ox, oy, oz, invDx, invDy, invDz,
+                    Double.POSITIVE_INFINITY)) >= 0; )
+                for (int i = nodeOffsets[leaf], end = i + nodeCounts[leaf]; i < end; i++)
+                    intersections = Geometries.addAll(intersections, leafItems[i].findGeoIntersections(ray));
+        } finally {
+            traversal.release();
+        }
+        return intersections;
+    }
+
+    /**
+     * Finds the closest intersection of the ray with the geometries in the hierarchy.
+     * The nodes are visited front to back, and a node is skipped when the ray enters it
+     * farther than the closest hit found so far.
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if the hit was updated
+     */
+    boolean findClosestHit(Ray ray, Hit hit) {
+        boolean found = false;
+        for (Intersectable geometry : unbounded)
+            if (geometry.findClosestHitHelper(ray, hit)) found = true;
+        if (nodes == 0) return found;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double invDx = 1 / dir.getX(), invDy = 1 / dir.getY(), invDz = 1 / dir.getZ();
+        double maxDistance = hit.getDistance();
+        double tRoot = FlatNodes.intersect(nodeBounds, 0, ox, oy, oz, invDx, invDy, invDz, maxDistance);
+        if (tRoot == Double.POSITIVE_INFINITY) return found;
+        if (wideBounds != null) return findClosestHitWide(ray, ox, oy, oz, invDx, invDy, invDz, tRoot, hit) || found;
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            tree.start(traversal, tRoot);
+            for (int leaf; (leaf = tree.nextNearestLeaf(traversal, ox, oy, oz, invDx, invDy, invDz,
+                    maxDistance)) >= 0; ) {
+                for (int i = nodeOffsets[leaf], end = i + nodeCounts[leaf]; i < end; i++)
+                    if (leafItems[i].findClosestHitHelper(ray, hit)) found = true;
+                maxDistance = hit.getDistance();
+            }
+        } finally {
+            traversal.release();
+        }
+        return found;
+    }
+
+    /**
+     * Finds the closest hits of a packet of rays, which traverse the hierarchy together so each node is
+     * fetched once for all the rays. A node is visited by the rays from the first one that hits it -
+     * that ray is tested first, and when it misses, the interval of the whole packet may cull the node
+     * at once before the other rays are tested one by one. The rays that missed a node are dropped
+     * from the packet in its sub-tree, so a packet whose rays diverge thins out instead of dragging
+     * all of its rays along. The children are visited in the order the first ray enters them.
+     * A packet whose rays are not coherent, and wide nodes, are traversed ray by ray.
+     *
+     * @param packet the rays and their closest hits so far
+     */
+    void findClosestHits(RayPacket packet) {
+        int n = packet.size();
+        if (wideBounds != null || !packet.isCoherent() || nodes == 0) {
+            for (int i = 0; i < n; i++) findClosestHit(packet.getRay(i), packet.hit(i));
+            return;
+        }
+        for (Intersectable geometry : unbounded)
+            for (int i = 0; i < n; i++) geometry.findClosestHitHelper(packet.getRay(i), packet.hit(i));
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            int[] stack = traversal.nodes, firstRays = traversal.firstRays;
+            int top = 0;
+            firstRays[top] = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                int first = firstHit(packet, node, firstRays[top]);
+                if (first < 0) continue;
+                int count = nodeCounts[node];
+                if (count > 0) {
+                    for (int r = first; r < n; r++) {
+                        if (r > first && hitsNode(packet, node, r) == Double.POSITIVE_INFINITY) continue;
+                        Ray ray = packet.getRay(r);
+                        Hit hit = packet.hit(r);
+                        for (int i = nodeOffsets[node], end = i + count; i < end; i++)
+                            leafItems[i].findClosestHitHelper(ray, hit);
+                    }
+                    continue;
+                }
+                int near = node + 1, far = nodeOffsets[node];
+                if (hitsNode(packet, far, first) < hitsNode(packet, near, first)) {
+                    near = far;
+                    far = node + 1;
+                }
+                // push the farther child first, so the nearer one is visited first
+                firstRays[top] = first;
+                stack[top++] = far;
+                firstRays[top] = first;
+                stack[top++] = near;
+            }
+        } finally {
+            traversal.release();
+        }
+    }
+
+    /**
+     * Finds the first ray of a packet that hits the box of a node nearer than its closest hit.
+     *
+     * @param packet the rays
+     * @param node   the index of the node
+     * @param from   the first ray to test (the rays before it missed the parent node)
+     * @return the index of the ray, or -1 if none of the rays hits the node
+     */
+    private int firstHit(RayPacket packet, int node, int from) {
+        if (hitsNode(packet, node, from) != Double.POSITIVE_INFINITY) return from;
+        if (packet.misses(nodeBounds, node)) return -1;
+        for (int r = from + 1, n = packet.size(); r < n; r++)
+            if (hitsNode(packet, node, r) != Double.POSITIVE_INFINITY) return r;
+        return -1;
+    }
+
+    /**
+     * Slab test of a ray of a packet with the box of a node, up to the ray's closest hit.
+     *
+     * @return the entering distance, or {@link Double#POSITIVE_INFINITY} if the ray misses the box
+     */
+    private double hitsNode(RayPacket packet, int node, int r) {
+        return FlatNodes.intersect(nodeBounds, node, packet.ox[r], packet.oy[r], packet.oz[r],
+                packet.invDx[r], packet.invDy[r], packet.invDz[r], packet.hit(r).getDistance());
+    }
+
+    /**
+     * Collects the geometries in the hierarchy whose boxes may be inside a frustum. The sub-trees
+     * whose boxes are out of the frustum are skipped whole. The unbounded geometries are always collected.
+     *
+     * @param frustum    the frustum
+     * @param candidates the list to collect into
+     * @param limit      the maximal number of geometries to collect
+     * @return false if there were more than limit geometries to collect (the list is then incomplete)
+     */
+    boolean collect(Frustum frustum, List<Intersectable> candidates, int limit) {
+        candidates.addAll(List.of(unbounded));
+        if (nodes == 0) return candidates.size() <= limit;
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            int[] stack = traversal.nodes;
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (!frustum.intersects(nodeBounds, node)) continue;
+                int count = nodeCounts[node];
+                if (count == 0) {
+                    stack[top++] = nodeOffsets[node];
+                    stack[top++] = node + 1;
+                    continue;
+                }
+                for (int i = nodeOffsets[node], end = i + count; i < end; i++) {
+                    if (!frustum.intersects(leafItems[i].getBoundingBox())) continue;
+                    if (candidates.size() == limit) return false;
+                    candidates.add(leafItems[i]);
+                }
+            }
+        } finally {
+            traversal.release();
+        }
+        return candidates.size() <= limit;
+    }
+
+    /**
+     * Accumulates the transparency of the geometries in the hierarchy along a shadow ray,
+     * the traversal stops as soon as the ray is blocked.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the accumulated transparency
+     */
+    Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        for (Intersectable geometry : unbounded) {
+            ktr = geometry.findTransparencyHelper(ray, maxDistance, ktr, minK);
+            if (ktr.lowerThan(minK)) return ktr;
+        }
+        if (nodes == 0) return ktr;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double invDx = 1 / dir.getX(), invDy = 1 / dir.getY(), invDz = 1 / dir.getZ();
+        if (wideBounds != null)
+            return findTransparencyWide(ray, ox, oy, oz, invDx, invDy, invDz, maxDistance, ktr, minK);
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            tree.start(traversal, 0);
+            for (int leaf; (leaf = tree.nextLeaf(traversal, ox, oy, oz, invDx, invDy, invDz, maxDistance)) >= 0; )
+                for (int i = nodeOffsets[leaf], end = i + nodeCounts[leaf]; i < end; i++) {
+                    ktr = leafItems[i].findTransparencyHelper(ray, maxDistance, ktr, minK);
+                    if (ktr.lowerThan(minK)) return ktr;
+                }
+        } finally {
+            traversal.release();
+        }
+        return ktr;
+    }
+
+    // ***************** Wide nodes traversal ********************** //
+
+    /**
+     * Collects the intersections of the ray with the geometries, through the wide nodes.
+     *
+     * @return the intersections found so far, including the hierarchy's ones
+     */
+    private List<GeoPoint> findGeoIntersectionsWide(Ray ray, double ox, double oy, double oz,
+                                                    double invDx, double invDy, double invDz,
+                                                    List<GeoPoint> intersections) {
+        if (FlatNodes.intersect(nodeBounds, 0, ox, oy, oz, invDx, invDy, invDz, Double.POSITIVE_INFINITY)
+                == Double.POSITIVE_INFINITY)
+            return intersections;
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            int[] stack = traversal.nodes;
+            double[] lanes = traversal.lanes;
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (node < 0) {
+                    int leaf = -node - 1;
+                    for (int i = nodeOffsets[leaf], end = i + nodeCounts[leaf]; i < end; i++)
+                        intersections = Geometries.addAll(intersections, leafItems[i].findGeoIntersections(ray));
+                    continue;
+                }
+                FlatNodes.intersectLanes(wideBounds, node, ox, oy, oz, invDx, invDy, invDz,
+                        Double.POSITIVE_INFINITY, lanes);
+                for (int lane = 0; lane < FlatNodes.WIDTH; lane++)
+                    if (lanes[lane] != Double.POSITIVE_INFINITY)
+                        stack[top++] = wideChildren[FlatNodes.WIDTH * node + lane];
+            }
+        } finally {
+            traversal.release();
+        }
+        return intersections;
+    }
+
+    /**
+     * Finds the closest intersection of the ray with the geometries, through the wide nodes.
+     * The children of each wide node are visited front to back.
+     *
+     * @param tRoot the distance in which the ray enters the root
+     * @return true if the hit was updated
+     */
+    private boolean findClosestHitWide(Ray ray, double ox, double oy, double oz,
+                                       double invDx, double invDy, double invDz, double tRoot, Hit hit) {
+        boolean found = false;
+        double maxDistance = hit.getDistance();
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            // each node is pushed with the distance in which the ray enters it
+            int[] stack = traversal.nodes;
+            double[] entries = traversal.entries;
+            double[] lanes = traversal.lanes;
+            int[] order = traversal.order;
+            int top = 0;
+            entries[top] = tRoot;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (entries[top] >= maxDistance) continue;//a nearer geometry was found since it was pushed
+                if (node < 0) {
+                    int leaf = -node - 1;
+                    for (int i = nodeOffsets[leaf], end = i + nodeCounts[leaf]; i < end; i++)
+                        if (leafItems[i].findClosestHitHelper(ray, hit)) found = true;
+                    maxDistance = hit.getDistance();
+                    continue;
+                }
+                FlatNodes.intersectLanes(wideBounds, node, ox, oy, oz, invDx, invDy, invDz, maxDistance, lanes);
+                // sort the crossed children from the farthest to the nearest (insertion sort of up to 4)
+                int crossed = 0;
+                for (int lane = 0; lane < FlatNodes.WIDTH; lane++) {
+                    double t = lanes[lane];
+                    if (t == Double.POSITIVE_INFINITY) continue;
+                    int k = crossed++;
+                    for (; k > 0 && lanes[order[k - 1]] < t; k--) order[k] = order[k - 1];
+                    order[k] = lane;
+                }
+                // push the farther children first, so the nearest one is visited first
+                for (int k = 0; k < crossed; k++) {
+                    entries[top] = lanes[order[k]];
+                    stack[top++] = wideChildren[FlatNodes.WIDTH * node + order[k]];
+                }
+            }
+        } finally {
+            traversal.release();
+        }
+        return found;
+    }
+
+    /**
+     * Accumulates the transparency of the geometries along a shadow ray, through the wide nodes.
+     *
+     * @return the accumulated transparency
+     */
+    private Double3 findTransparencyWide(Ray ray, double ox, double oy, double oz,
+                                         double invDx, double invDy, double invDz,
+                                         double maxDistance, Double3 ktr, double minK) {
+        if (FlatNodes.intersect(nodeBounds, 0, ox, oy, oz, invDx, invDy, invDz, maxDistance)
+                == Double.POSITIVE_INFINITY)
+            return ktr;
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            int[] stack = traversal.nodes;
+            double[] lanes = traversal.lanes;
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (node < 0) {
+                    int leaf = -node - 1;
+                    for (int i = nodeOffsets[leaf], end = i + nodeCounts[leaf]; i < end; i++) {
+                        ktr = leafItems[i].findTransparencyHelper(ray, maxDistance, ktr, minK);
+                        if (ktr.lowerThan(minK)) return ktr;
+                    }
+                    continue;
+                }
+                FlatNodes.intersectLanes(wideBounds, node, ox, oy, oz, invDx, invDy, invDz, maxDistance, lanes);
+                for (int lane = 0; lane < FlatNodes.WIDTH; lane++)
+                    if (lanes[lane] != Double.POSITIVE_INFINITY)
+                        stack[top++] = wideChildren[FlatNodes.WIDTH * node + lane];
+            }
+        } finally {
+            traversal.release();
+        }
+        return ktr;
+    }
+}
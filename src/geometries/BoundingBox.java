@@ -0,0 +1,187 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Objects;
+
+/**
+ * An axis-aligned bounding box (AABB) in the 3 dimension, used for
+ * culling rays before running the exact intersection of a geometry
+ */
+public class BoundingBox {
+    /**
+     * The minimal coordinates of the box
+     */
+    final double minX, minY, minZ;
+    /**
+     * The maximal coordinates of the box
+     */
+    final double maxX, maxY, maxZ;
+
+    /**
+     * Creates a new bounding box from its minimal and maximal coordinates.
+     *
+     * @param minX the minimal x coordinate
+     * @param minY the minimal y coordinate
+     * @param minZ the minimal z coordinate
+     * @param maxX the maximal x coordinate
+     * @param maxY the maximal y coordinate
+     * @param maxZ the maximal z coordinate
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Creates the smallest bounding box that contains all the given points.
+     *
+     * @param points the points to bound
+     */
+    public BoundingBox(Point... points) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            x0 = Math.min(x0, p.getX());
+            y0 = Math.min(y0, p.getY());
+            z0 = Math.min(z0, p.getZ());
+            x1 = Math.max(x1, p.getX());
+            y1 = Math.max(y1, p.getY());
+            z1 = Math.max(z1, p.getZ());
+        }
+        minX = x0;
+        minY = y0;
+        minZ = z0;
+        maxX = x1;
+        maxY = y1;
+        maxZ = z1;
+    }
+
+    /**
+     * Returns the smallest bounding box that contains both this box and the other one.
+     *
+     * @param other the other box
+     * @return the union of the two boxes
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Returns the minimal corner of the box.
+     *
+     * @return the minimal corner
+     */
+    public Point getMin() {
+        return new Point(minX, minY, minZ);
+    }
+
+    /**
+     * Returns the maximal corner of the box.
+     *
+     * @return the maximal corner
+     */
+    public Point getMax() {
+        return new Point(maxX, maxY, maxZ);
+    }
+
+    /**
+     * Returns the center of the box along one of the axes.
+     *
+     * @param axis 0 for x, 1 for y and 2 for z
+     * @return the center coordinate along the axis
+     */
+    public double getCenter(int axis) {
+        return switch (axis) {
+            case 0 -> (minX + maxX) / 2;
+            case 1 -> (minY + maxY) / 2;
+            default -> (minZ + maxZ) / 2;
+        };
+    }
+
+    /**
+     * Returns the surface area of the box, used by the surface area heuristic.
+     *
+     * @return the surface area of the box
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Computes the distance in which the ray enters the box (slab test).
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance along the ray to look at
+     * @return the entering distance (0 if the ray starts inside the box),
+     * or {@link Double#POSITIVE_INFINITY} if the ray misses the box before maxDistance
+     */
+    public double intersect(Ray ray, double maxDistance) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        return intersect(p0.getX(), p0.getY(), p0.getZ(),
+                1 / dir.getX(), 1 / dir.getY(), 1 / dir.getZ(), maxDistance);
+    }
+
+    /**
+     * Computes the distance in which the ray enters the box (slab test),
+     * with the ray given by its origin and the inverse of its direction.
+     *
+     * @param ox          the x coordinate of the ray origin
+     * @param oy          the y coordinate of the ray origin
+     * @param oz          the z coordinate of the ray origin
+     * @param invDx       1 / the x coordinate of the ray direction
+     * @param invDy       1 / the y coordinate of the ray direction
+     * @param invDz       1 / the z coordinate of the ray direction
+     * @param maxDistance the maximal distance along the ray to look at
+     * @return the entering distance (0 if the ray starts inside the box),
+     * or {@link Double#POSITIVE_INFINITY} if the ray misses the box before maxDistance
+     */
+    public double intersect(double ox, double oy, double oz,
+                            double invDx, double invDy, double invDz, double maxDistance) {
+        // the comparisons are written so that a NaN (a ray parallel to a slab and
+        // starting exactly on its side) leaves the interval untouched
+        double tNear = 0, tFar = maxDistance;
+        double t1 = (minX - ox) * invDx, t2 = (maxX - ox) * invDx;
+        if (invDx < 0) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        t1 = (minY - oy) * invDy;
+        t2 = (maxY - oy) * invDy;
+        if (invDy < 0) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        t1 = (minZ - oz) * invDz;
+        t2 = (maxZ - oz) * invDz;
+        if (invDz < 0) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        return tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        return obj instanceof BoundingBox other
+                && minX == other.minX && minY == other.minY && minZ == other.minZ
+                && maxX == other.maxX && maxY == other.maxY && maxZ == other.maxZ;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{(" + minX + "," + minY + "," + minZ + "),(" + maxX + "," + maxY + "," + maxZ + ")}";
+    }
+}
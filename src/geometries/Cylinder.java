@@ -4,7 +4,8 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
-import java.util.List;
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 public class Cylinder extends Tube {
     double height;//The height of the cylinder
@@ -22,13 +23,60 @@ public class Cylinder extends Tube {
         //If the given point is the same as one of the centers of the bases
         // or the point is on one of the bases
         // the normal vector is the same as the direction vector of the cylinder's ray
-        if (point.equals(p0) || point.equals(upperPoint) || v.dotProduct(point.subtract(p0)) == 0 || v.dotProduct(point.subtract(upperPoint)) == 0)
+        if (point.equals(p0) || point.equals(upperPoint) || isZero(v.dotProduct(point.subtract(p0))) || isZero(v.dotProduct(point.subtract(upperPoint))))
             return axisRay.getDir();
         return super.getNormal(point);//else, the point is on the body of the cylinder so use the father(Tube) to calculate the normal
     }
 
+    /**
+     * Bounds the cylinder by the boxes of its two bases.
+     * Along each axis a base of radius r spreads r * sqrt(1 - v^2), where v is the
+     * coordinate of the (unit) direction of the cylinder on that axis.
+     *
+     * @return the bounding box of the cylinder
+     */
     @Override
-    public List<Point> findIntersections(Ray ray) {
-        return null;
+    public BoundingBox getBoundingBox() {
+        Vector v = axisRay.getDir();
+        Point p0 = axisRay.getP0();
+        Point p1 = p0.add(v.scale(height));
+        double ex = radius * Math.sqrt(Math.max(0, 1 - v.getX() * v.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - v.getY() * v.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - v.getZ() * v.getZ()));
+        return new BoundingBox(
+                Math.min(p0.getX(), p1.getX()) - ex, Math.min(p0.getY(), p1.getY()) - ey, Math.min(p0.getZ(), p1.getZ()) - ez,
+                Math.max(p0.getX(), p1.getX()) + ex, Math.max(p0.getY(), p1.getY()) + ey, Math.max(p0.getZ(), p1.getZ()) + ez);
+    }
+
+    /**
+     * Computes the distance of the nearest intersection of the ray with the side or the bases
+     * of the cylinder that is farther than a given distance.
+     * The rims of the bases are not intersected, like the edges of a polygon.
+     *
+     * @param ray         the ray to intersect with the cylinder
+     * @param minDistance the minimal distance (excluded) from the head of the ray
+     * @return the distance of the intersection, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    @Override
+    protected double intersect(Ray ray, double minDistance) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double wx = p0.getX() - axisX, wy = p0.getY() - axisY, wz = p0.getZ() - axisZ;
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double t = intersectBody(wx, wy, wz, dx, dy, dz, minDistance, 0, height);
+        double dv = dx * dirX + dy * dirY + dz * dirZ;
+        if (isZero(dv)) return t;//the ray is parallel to the bases
+        double wv = wx * dirX + wy * dirY + wz * dirZ;
+        double r2 = radius * radius;
+        // the bases are at heights 0 and height along the axis
+        for (int i = 0; i < 2; i++) {
+            double base = i * height;
+            double tBase = (base - wv) / dv;
+            if (tBase < t && isAfter(tBase, minDistance)) {
+                double qx = wx + tBase * dx, qy = wy + tBase * dy, qz = wz + tBase * dz;
+                if (alignZero(qx * qx + qy * qy + qz * qz - base * base - r2) < 0) t = tBase;
+            }
+        }
+        return t;
     }
 }
@@ -0,0 +1,216 @@
+package geometries;
+
+/**
+ * Helpers for the hierarchies that are stored in flat arrays ({@link FlatTree} and the wide nodes of {@link BVH}).
+ * The boxes of the nodes are kept as floats - 6 per node (minX, minY, minZ, maxX, maxY, maxZ) -
+ * rounded outwards so a float box always contains the exact one, which halves the memory the
+ * traversal reads. The traversal stacks are kept per thread and reused, so a traversal allocates nothing.
+ */
+final class FlatNodes {
+    /**
+     * The size of a traversal stack - enough for the deepest tree the builders make,
+     * when each visited node pushes up to {@link #WIDTH} children
+     */
+    static final int STACK_SIZE = 256;
+    /**
+     * The number of children of a wide node
+     */
+    static final int WIDTH = 4;
+
+    /**
+     * The stacks of the current thread. A traversal may start another one (a geometry in a leaf
+     * may be a hierarchy of its own), so the stacks are chained and each traversal takes a free one.
+     */
+    private static final ThreadLocal<FlatNodes> STACKS = ThreadLocal.withInitial(FlatNodes::new);
+
+    /**
+     * The nodes on the stack and the distances in which the ray enters them
+     */
+    final int[] nodes = new int[STACK_SIZE];
+    final double[] entries = new double[STACK_SIZE];
+    /**
+     * The number of nodes on the stack, kept between the steps of a {@link FlatTree} traversal
+     */
+    int top = 0;
+    /**
+     * The item that a closest-hit traversal found, whose distance the traversal returns
+     */
+    int closest = -1;
+    /**
+     * The first ray of a packet that may hit each node on the stack (the rays before it miss the node)
+     */
+    final int[] firstRays = new int[STACK_SIZE];
+    /**
+     * The entering distances of the children of a wide node, and the children sorted by them
+     */
+    final double[] lanes = new double[WIDTH];
+    final int[] order = new int[WIDTH];
+    /**
+     * The stack of a nested traversal, and whether this one is taken
+     */
+    private FlatNodes next = null;
+    private boolean inUse = false;
+
+    private FlatNodes() {
+    }
+
+    /**
+     * Takes a free traversal stack of the current thread. It must be returned by {@link #release()}.
+     *
+     * @return the stack
+     */
+    static FlatNodes acquire() {
+        FlatNodes stack = STACKS.get();
+        while (stack.inUse) {
+            if (stack.next == null) stack.next = new FlatNodes();
+            stack = stack.next;
+        }
+        stack.inUse = true;
+        return stack;
+    }
+
+    /**
+     * Returns the stack, so the next traversal of the thread can take it.
+     */
+    void release() {
+        inUse = false;
+    }
+
+    /**
+     * Writes the box of a node, rounded outwards to floats.
+     *
+     * @param bounds the boxes of the nodes
+     * @param node   the index of the node
+     * @param box    the exact box - minX, minY, minZ, maxX, maxY, maxZ
+     * @return true if the box of the node changed
+     */
+    static boolean setBounds(float[] bounds, int node, double[] box) {
+        boolean changed = false;
+        for (int k = 0; k < 6; k++) {
+            float value = k < 3 ? floor(box[k]) : ceil(box[k]);
+            if (bounds[6 * node + k] != value) {
+                bounds[6 * node + k] = value;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the largest float that is not greater than the value
+     */
+    private static float floor(double value) {
+        float f = (float) value;
+        return f > value ? Math.nextDown(f) : f;
+    }
+
+    /**
+     * Returns the smallest float that is not less than the value
+     */
+    private static float ceil(double value) {
+        float f = (float) value;
+        return f < value ? Math.nextUp(f) : f;
+    }
+
+    /**
+     * Returns the box of a node.
+     *
+     * @param bounds the boxes of the nodes
+     * @param node   the index of the node
+     * @return the box
+     */
+    static BoundingBox getBox(float[] bounds, int node) {
+        int b = 6 * node;
+        return new BoundingBox(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4], bounds[b + 5]);
+    }
+
+    /**
+     * Returns the surface area of the box of a node.
+     *
+     * @param bounds the boxes of the nodes
+     * @param node   the index of the node
+     * @return the surface area
+     */
+    static double area(float[] bounds, int node) {
+        int b = 6 * node;
+        double dx = bounds[b + 3] - bounds[b], dy = bounds[b + 4] - bounds[b + 1], dz = bounds[b + 5] - bounds[b + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Returns the squared distance of a point from the box of a node (0 if the point is inside the box).
+     *
+     * @param bounds the boxes of the nodes
+     * @param node   the index of the node
+     * @return the squared distance
+     */
+    static double distanceSquared(float[] bounds, int node, double x, double y, double z) {
+        int b = 6 * node;
+        double dx = Math.max(0, Math.max(bounds[b] - x, x - bounds[b + 3]));
+        double dy = Math.max(0, Math.max(bounds[b + 1] - y, y - bounds[b + 4]));
+        double dz = Math.max(0, Math.max(bounds[b + 2] - z, z - bounds[b + 5]));
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Slab test of a ray with the box of a node, see {@link BoundingBox#intersect(double, double, double,
+     * double, double, double, double)}.
+     *
+     * @param bounds the boxes of the nodes
+     * @param node   the index of the node
+     * @return the entering distance, or {@link Double#POSITIVE_INFINITY} if the ray misses the box before maxDistance
+     */
+    static double intersect(float[] bounds, int node, double ox, double oy, double oz,
+                            double invDx, double invDy, double invDz, double maxDistance) {
+        int b = 6 * node;
+        double tNear = 0, tFar = maxDistance;
+        double t1 = (bounds[b] - ox) * invDx, t2 = (bounds[b + 3] - ox) * invDx;
+        if (invDx < 0) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        t1 = (bounds[b + 1] - oy) * invDy;
+        t2 = (bounds[b + 4] - oy) * invDy;
+        if (invDy < 0) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        t1 = (bounds[b + 2] - oz) * invDz;
+        t2 = (bounds[b + 5] - oz) * invDz;
+        if (invDz < 0) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        return tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Slab test of a ray with the boxes of all the children of a wide node. The boxes are kept as
+     * structure of arrays lanes (the minX of all the children, then their minY and so on), and each
+     * step of the loop does the same work for all the lanes, so the JIT compiler may run it in SIMD registers.
+     *
+     * @param bounds  the boxes of the children of the wide nodes
+     * @param node    the index of the wide node
+     * @param entries receives the entering distance of each child,
+     *                or {@link Double#POSITIVE_INFINITY} if the ray misses it before maxDistance
+     */
+    static void intersectLanes(float[] bounds, int node, double ox, double oy, double oz,
+                               double invDx, double invDy, double invDz, double maxDistance, double[] entries) {
+        int b = 6 * WIDTH * node;
+        // the slab of each axis is read from the near side to the far one by the direction's sign
+        int nearX = invDx < 0 ? 3 * WIDTH : 0, nearY = invDy < 0 ? 4 * WIDTH : WIDTH, nearZ = invDz < 0 ? 5 * WIDTH : 2 * WIDTH;
+        int farX = 3 * WIDTH - nearX, farY = 5 * WIDTH - nearY, farZ = 7 * WIDTH - nearZ;
+        for (int lane = 0; lane < WIDTH; lane++) {
+            double tNear = 0, tFar = maxDistance;
+            double t1 = (bounds[b + nearX + lane] - ox) * invDx, t2 = (bounds[b + farX + lane] - ox) * invDx;
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            t1 = (bounds[b + nearY + lane] - oy) * invDy;
+            t2 = (bounds[b + farY + lane] - oy) * invDy;
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            t1 = (bounds[b + nearZ + lane] - oz) * invDz;
+            t2 = (bounds[b + farZ + lane] - oz) * invDz;
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            entries[lane] = tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A binary hierarchy of boxes over a set of items, shared by {@link BVH}, {@link TriangleMesh} and {@link SphereSet}.
+ * The tree is built top-down, and each node is split where the surface area heuristic (SAH) estimates
+ * the cheapest traversal. The candidate splits are the borders of a fixed number of bins along each axis
+ * (binned SAH), and the large sub-trees are built in parallel as fork/join tasks.
+ * The built tree is laid out in flat arrays in depth-first order - the left child of a node is the
+ * next node - with the boxes as floats (see {@link FlatNodes}).
+ * The items are given by their indices, and the tree sorts the indices so the items of each leaf are
+ * a contiguous range of {@link #items}. The traversals are steps that return the next leaf a ray may hit,
+ * so the owner of the items tests them in its own loop, without callbacks and allocations.
+ */
+final class FlatTree {
+    /**
+     * Gives the box of an item while the tree is built
+     */
+    @FunctionalInterface
+    interface Bounds {
+        /**
+         * Writes the box of an item.
+         *
+         * @param item the index of the item
+         * @param box  receives the box - minX, minY, minZ, maxX, maxY, maxZ
+         */
+        void getBounds(int item, double[] box);
+    }
+
+    /**
+     * The estimated cost of visiting a node, relative to the cost of intersecting an item
+     */
+    static final double TRAVERSAL_COST = 0.125;
+    /**
+     * The number of bins the items are sorted into along each axis when looking for the best split
+     */
+    private static final int BINS = 16;
+    /**
+     * The number of items from which a sub-tree is built as a task of its own
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+    /**
+     * The depth from which the nodes are split in the middle, which bounds the depth of the tree
+     * (and the size of the traversal stack)
+     */
+    private static final int MAX_SAH_DEPTH = 56;
+
+    /**
+     * A node of the tree while it is built - either an inner node with two children or a leaf with a range of items
+     */
+    private static class Node {
+        /**
+         * The box that bounds all the items under the node - minX, minY, minZ, maxX, maxY, maxZ
+         */
+        final double[] box;
+        /**
+         * The children of an inner node (null in a leaf)
+         */
+        Node left, right;
+        /**
+         * The range of the items of a leaf in the build order (count is 0 in an inner node)
+         */
+        int from, count;
+
+        Node(double[] box) {
+            this.box = box;
+        }
+    }
+
+    /**
+     * The boxes of the nodes (6 floats for each node, see {@link FlatNodes})
+     */
+    final float[] nodeBounds;
+    /**
+     * For a leaf - the position of its first item in {@link #items},
+     * for an inner node - the index of its right child (the left child is the next node)
+     */
+    final int[] nodeOffsets;
+    /**
+     * The number of items in a leaf, 0 for an inner node
+     */
+    final int[] nodeCounts;
+    /**
+     * The parent of each node (-1 for the root), to refit the boxes bottom-up
+     */
+    final int[] parents;
+    /**
+     * The indices of the items, in the order of the leaves
+     */
+    final int[] items;
+    /**
+     * The number of nodes and of leaves, and the depth of the tree
+     */
+    final int nodes, leaves, depth;
+
+    /**
+     * The maximal number of items in a leaf
+     */
+    private final int maxLeafSize;
+    /**
+     * The bounds of the boxes of the items (minX, minY, minZ, maxX, maxY, maxZ of each) and the centers
+     * of their boxes (x, y, z of each), needed only while building.
+     * They are kept in the order of the build (like the indices of the items), so each pass over a node
+     * reads them sequentially.
+     */
+    private double[] bounds;
+    private double[] centers;
+
+    /**
+     * Builds a hierarchy over items.
+     *
+     * @param n           the number of items (indexed 0 to n-1)
+     * @param itemBounds  gives the box of each item
+     * @param maxLeafSize the maximal number of items in a leaf that is not worth splitting
+     */
+    FlatTree(int n, Bounds itemBounds, int maxLeafSize) {
+        this.maxLeafSize = maxLeafSize;
+        items = new int[n];
+        bounds = new double[6 * n];
+        centers = new double[3 * n];
+        double[] box = new double[6];
+        for (int i = 0; i < n; i++) {
+            items[i] = i;
+            itemBounds.getBounds(i, box);
+            System.arraycopy(box, 0, bounds, 6 * i, 6);
+            for (int axis = 0; axis < 3; axis++)
+                centers[3 * i + axis] = (box[axis] + box[axis + 3]) / 2;
+        }
+        Node root;
+        if (n == 0) root = null;
+        else if (n < PARALLEL_THRESHOLD) root = build(0, n, 0);
+        else root = ForkJoinPool.commonPool().invoke(new BuildTask(this, 0, n, 0));
+        // the build data is not needed anymore
+        bounds = null;
+        centers = null;
+
+        int[] counts = new int[3];
+        if (root != null) count(root, 1, counts);
+        nodes = counts[0];
+        leaves = counts[1];
+        depth = counts[2];
+        nodeBounds = new float[6 * nodes];
+        nodeOffsets = new int[nodes];
+        nodeCounts = new int[nodes];
+        parents = new int[nodes];
+        if (root != null) flatten(root, -1, new int[1]);
+    }
+
+    /**
+     * A task that builds a sub-tree, so the two children of a large node are built in parallel.
+     * The tasks are never serialized, the builder is given explicitly (a static class does not capture it).
+     */
+    private static class BuildTask extends RecursiveTask<Node> {
+        private static final long serialVersionUID = 1L;
+        /**
+         * The hierarchy being built, which holds the build data
+         */
+        private final transient FlatTree builder;
+        private final int from, to, level;
+
+        BuildTask(FlatTree builder, int from, int to, int level) {
+            this.builder = builder;
+            this.from = from;
+            this.to = to;
+            this.level = level;
+        }
+
+        @Override
+        protected Node compute() {
+            return builder.build(from, to, level);
+        }
+    }
+
+    /**
+     * Builds the sub-tree of the items items[from..to) and sorts them according to the chosen splits.
+     *
+     * @param from  the first index (included)
+     * @param to    the last index (excluded)
+     * @param level the depth of the sub-tree's root in the tree (0 for the root)
+     * @return the root of the sub-tree
+     */
+    private Node build(int from, int to, int level) {
+        int n = to - from;
+        // the box of the node and the box of the centers of its items
+        double[] box = emptyBox(), centerBox = emptyBox();
+        for (int i = from; i < to; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                // plain comparisons are much cheaper than Math.min/max, and the bounds are never NaN
+                double low = bounds[6 * i + axis], high = bounds[6 * i + axis + 3], center = centers[3 * i + axis];
+                if (low < box[axis]) box[axis] = low;
+                if (high > box[axis + 3]) box[axis + 3] = high;
+                if (center < centerBox[axis]) centerBox[axis] = center;
+                if (center > centerBox[axis + 3]) centerBox[axis + 3] = center;
+            }
+        }
+        Node node = new Node(box);
+        if (n == 1) {
+            node.from = from;
+            node.count = 1;
+            return node;
+        }
+
+        // bin the items along each axis and find the split with the lowest SAH cost
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1, bestSplit = -1;
+        int[] counts = new int[BINS];
+        double[] binBounds = new double[6 * BINS];
+        double[] rightAreas = new double[BINS];
+        int[] rightCounts = new int[BINS];
+        for (int axis = 0; axis < 3 && level < MAX_SAH_DEPTH; axis++) {
+            double cMin = centerBox[axis], extent = centerBox[axis + 3] - cMin;
+            if (extent <= 0) continue;//all the centers are in the same place along the axis
+            Arrays.fill(counts, 0);
+            for (int b = 0; b < BINS; b++) {
+                Arrays.fill(binBounds, 6 * b, 6 * b + 3, Double.POSITIVE_INFINITY);
+                Arrays.fill(binBounds, 6 * b + 3, 6 * b + 6, Double.NEGATIVE_INFINITY);
+            }
+            for (int i = from; i < to; i++) {
+                int b = bin(centers[3 * i + axis], cMin, extent);
+                counts[b]++;
+                for (int k = 0; k < 3; k++) {
+                    double low = bounds[6 * i + k], high = bounds[6 * i + k + 3];
+                    if (low < binBounds[6 * b + k]) binBounds[6 * b + k] = low;
+                    if (high > binBounds[6 * b + k + 3]) binBounds[6 * b + k + 3] = high;
+                }
+            }
+            double[] right = emptyBox();
+            int rightCount = 0;
+            for (int b = BINS - 1; b > 0; b--) {
+                grow(right, binBounds, b);
+                rightCount += counts[b];
+                rightAreas[b] = area(right);
+                rightCounts[b] = rightCount;
+            }
+            double[] left = emptyBox();
+            int leftCount = 0;
+            for (int b = 1; b < BINS; b++) {
+                grow(left, binBounds, b - 1);
+                leftCount += counts[b - 1];
+                if (leftCount == 0 || rightCounts[b] == 0) continue;
+                double cost = area(left) * leftCount + rightAreas[b] * rightCounts[b];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestSplit = b;
+                }
+            }
+        }
+        double parentArea = area(box);
+        // degenerated boxes (all in one point) or a too deep node - just split in the middle
+        bestCost = parentArea > 0 && bestAxis >= 0 ? TRAVERSAL_COST + bestCost / parentArea : n;
+        if (n <= maxLeafSize && bestCost >= n) {
+            node.from = from;
+            node.count = n;
+            return node;
+        }
+        int mid = bestAxis < 0 ? from + n / 2
+                : partition(from, to, bestAxis, centerBox[bestAxis],
+                centerBox[bestAxis + 3] - centerBox[bestAxis], bestSplit);
+
+        if (n >= PARALLEL_THRESHOLD) {
+            BuildTask left = new BuildTask(this, from, mid, level + 1);
+            left.fork();
+            node.right = build(mid, to, level + 1);
+            node.left = left.join();
+        } else {
+            node.left = build(from, mid, level + 1);
+            node.right = build(mid, to, level + 1);
+        }
+        return node;
+    }
+
+    /**
+     * Moves the items whose centers fall in the bins before the split to the start of the range,
+     * together with their bounds and centers.
+     *
+     * @return the index of the first item after the split
+     */
+    private int partition(int from, int to, int axis, double cMin, double extent, int split) {
+        int i = from, j = to - 1;
+        while (i <= j) {
+            if (bin(centers[3 * i + axis], cMin, extent) < split) i++;
+            else swap(i, j--);
+        }
+        return i;
+    }
+
+    /**
+     * Swaps two items in the build order, with their bounds and centers
+     */
+    private void swap(int i, int j) {
+        int t = items[i];
+        items[i] = items[j];
+        items[j] = t;
+        for (int k = 0; k < 6; k++) {
+            double b = bounds[6 * i + k];
+            bounds[6 * i + k] = bounds[6 * j + k];
+            bounds[6 * j + k] = b;
+        }
+        for (int k = 0; k < 3; k++) {
+            double c = centers[3 * i + k];
+            centers[3 * i + k] = centers[3 * j + k];
+            centers[3 * j + k] = c;
+        }
+    }
+
+    /**
+     * Returns the bin that a center falls into
+     */
+    private static int bin(double center, double cMin, double extent) {
+        return Math.min(BINS - 1, (int) ((center - cMin) / extent * BINS));
+    }
+
+    /**
+     * Returns an empty box (minX, minY, minZ, maxX, maxY, maxZ) that any box grows
+     */
+    static double[] emptyBox() {
+        return new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    }
+
+    /**
+     * Grows a box to contain the k-th box of an array of boxes
+     */
+    private static void grow(double[] box, double[] boxes, int k) {
+        for (int axis = 0; axis < 3; axis++) {
+            if (boxes[6 * k + axis] < box[axis]) box[axis] = boxes[6 * k + axis];
+            if (boxes[6 * k + axis + 3] > box[axis + 3]) box[axis + 3] = boxes[6 * k + axis + 3];
+        }
+    }
+
+    /**
+     * Returns the surface area of a box (0 for an empty box)
+     */
+    private static double area(double[] box) {
+        double dx = box[3] - box[0], dy = box[4] - box[1], dz = box[5] - box[2];
+        return dx < 0 ? 0 : 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Counts the nodes and the leaves of a sub-tree and finds its depth.
+     *
+     * @param node   the root of the sub-tree
+     * @param level  the level of the node (1 for the root)
+     * @param counts the numbers of nodes and leaves, and the depth, to update
+     */
+    private static void count(Node node, int level, int[] counts) {
+        counts[0]++;
+        counts[2] = Math.max(counts[2], level);
+        if (node.left == null) {
+            counts[1]++;
+            return;
+        }
+        count(node.left, level + 1, counts);
+        count(node.right, level + 1, counts);
+    }
+
+    /**
+     * Lays a sub-tree out in the flat arrays in depth-first order. The leaves are laid out in the order
+     * of their ranges of items, so the position of a leaf's first item is the start of its range.
+     *
+     * @param node   the root of the sub-tree
+     * @param parent the index of the parent of the sub-tree (-1 for the root)
+     * @param next   the index of the next free node
+     * @return the index of the sub-tree's root
+     */
+    private int flatten(Node node, int parent, int[] next) {
+        int index = next[0]++;
+        FlatNodes.setBounds(nodeBounds, index, node.box);
+        parents[index] = parent;
+        if (node.left == null) {
+            nodeOffsets[index] = node.from;
+            nodeCounts[index] = node.count;
+        } else {
+            flatten(node.left, index, next);
+            nodeOffsets[index] = flatten(node.right, index, next);
+        }
+        return index;
+    }
+
+    // ***************** Traversal steps ********************** //
+
+    /**
+     * Starts a traversal of the tree by pushing the root on the stack of the traversal.
+     *
+     * @param traversal the traversal stack, taken by {@link FlatNodes#acquire()}
+     * @param entry     the distance in which the ray enters the root (for {@link #nextNearestLeaf}, 0 otherwise)
+     */
+    void start(FlatNodes traversal, double entry) {
+        traversal.top = 0;
+        if (nodes == 0) return;
+        traversal.entries[0] = entry;
+        traversal.nodes[traversal.top++] = 0;
+    }
+
+    /**
+     * Finds the next leaf whose box the ray crosses nearer than maxDistance, in no particular order.
+     *
+     * @param traversal   the traversal started by {@link #start}
+     * @param maxDistance the maximal distance (excluded) of the intersections
+     * @return the index of the leaf, or -1 if there are no more leaves
+     */
+    int nextLeaf(FlatNodes traversal, double ox, double oy, double oz,
+                 double invDx, double invDy, double invDz, double maxDistance) {
+        int[] stack = traversal.nodes;
+        int top = traversal.top;
+        while (top > 0) {
+            int node = stack[--top];
+            if (FlatNodes.intersect(nodeBounds, node, ox, oy, oz, invDx, invDy, invDz, maxDistance)
+                    == Double.POSITIVE_INFINITY)
+                continue;
+            if (nodeCounts[node] > 0) {
+                traversal.top = top;
+                return node;
+            }
+            stack[top++] = nodeOffsets[node];
+            stack[top++] = node + 1;
+        }
+        traversal.top = 0;
+        return -1;
+    }
+
+    /**
+     * Finds the next leaf whose box the ray crosses nearer than maxDistance, front to back - the children of
+     * each node are visited in the order the ray enters them, and a node is skipped when the ray enters it
+     * farther than the closest hit found so far (maxDistance, which the caller shrinks as it finds hits).
+     *
+     * @param traversal   the traversal started by {@link #start} with the distance in which the ray enters the root
+     * @param maxDistance the distance of the closest hit found so far
+     * @return the index of the leaf, or -1 if there are no more leaves
+     */
+    int nextNearestLeaf(FlatNodes traversal, double ox, double oy, double oz,
+                        double invDx, double invDy, double invDz, double maxDistance) {
+        // each node is pushed with the distance in which the ray enters it
+        int[] stack = traversal.nodes;
+        double[] entries = traversal.entries;
+        int top = traversal.top;
+        while (top > 0) {
+            int node = stack[--top];
+            if (entries[top] >= maxDistance) continue;//a nearer hit was found since it was pushed
+            if (nodeCounts[node] > 0) {
+                traversal.top = top;
+                return node;
+            }
+            int near = node + 1, far = nodeOffsets[node];
+            double tNear = FlatNodes.intersect(nodeBounds, near, ox, oy, oz, invDx, invDy, invDz, maxDistance);
+            double tFar = FlatNodes.intersect(nodeBounds, far, ox, oy, oz, invDx, invDy, invDz, maxDistance);
+            if (tFar < tNear) {
+                int tmp = near;
+                near = far;
+                far = tmp;
+                double t = tNear;
+                tNear = tFar;
+                tFar = t;
+            }
+            // push the farther child first, so the nearer one is visited first
+            if (tFar != Double.POSITIVE_INFINITY) {
+                entries[top] = tFar;
+                stack[top++] = far;
+            }
+            if (tNear != Double.POSITIVE_INFINITY) {
+                entries[top] = tNear;
+                stack[top++] = near;
+            }
+        }
+        traversal.top = 0;
+        return -1;
+    }
+
+    /**
+     * Finds the next leaf whose box is nearer to a point than a squared distance, in no particular order.
+     *
+     * @param traversal       the traversal started by {@link #start}
+     * @param distanceSquared the squared distance of the nearest item found so far
+     * @return the index of the leaf, or -1 if there are no more leaves
+     */
+    int nextLeafNear(FlatNodes traversal, double px, double py, double pz, double distanceSquared) {
+        int[] stack = traversal.nodes;
+        int top = traversal.top;
+        while (top > 0) {
+            int node = stack[--top];
+            if (FlatNodes.distanceSquared(nodeBounds, node, px, py, pz) >= distanceSquared) continue;
+            if (nodeCounts[node] > 0) {
+                traversal.top = top;
+                return node;
+            }
+            stack[top++] = nodeOffsets[node];
+            stack[top++] = node + 1;
+        }
+        traversal.top = 0;
+        return -1;
+    }
+
+    /**
+     * Returns the box of the root of the tree.
+     *
+     * @return the box of all the items, or null if the tree is empty
+     */
+    BoundingBox getBoundingBox() {
+        return nodes == 0 ? null : FlatNodes.getBox(nodeBounds, 0);
+    }
+}
@@ -0,0 +1,98 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Vector;
+
+/**
+ * A pyramid of view that starts at an apex (the camera) and goes through a quadrilateral
+ * (a tile of the view plane), bounded by the four side planes through the apex and by the plane
+ * of the apex itself, so everything behind the camera is out of it.
+ * It is used to keep only the geometries that the rays of a tile may hit, see {@link Geometries#cull(Frustum)}.
+ */
+public class Frustum {
+    /**
+     * The number of the bounding planes - four sides and the plane of the apex
+     */
+    private static final int PLANES = 5;
+
+    /**
+     * The apex of the pyramid
+     */
+    private final double ax, ay, az;
+    /**
+     * The inward normals of the bounding planes - x, y, z of each plane
+     */
+    private final double[] normals = new double[3 * PLANES];
+
+    /**
+     * Creates the pyramid from its apex to a quadrilateral.
+     *
+     * @param apex    the apex of the pyramid
+     * @param corners the four corners of the quadrilateral, in order around it
+     * @throws IllegalArgumentException if there are not four corners
+     */
+    public Frustum(Point apex, Point... corners) {
+        if (corners.length != 4) throw new IllegalArgumentException("A frustum is bounded by four corners");
+        ax = apex.getX();
+        ay = apex.getY();
+        az = apex.getZ();
+        Vector[] edges = new Vector[4];
+        Vector center = null;
+        for (int i = 0; i < 4; i++) {
+            edges[i] = corners[i].subtract(apex);
+            center = center == null ? edges[i] : center.add(edges[i]);
+        }
+        for (int i = 0; i < 4; i++) {
+            Vector normal = edges[i].crossProduct(edges[(i + 1) % 4]);
+            if (normal.dotProduct(center) < 0) normal = normal.scale(-1);//the normal must point into the pyramid
+            setNormal(i, normal);
+        }
+        setNormal(4, center);
+    }
+
+    /**
+     * Keeps the normal of a bounding plane
+     */
+    private void setNormal(int plane, Vector normal) {
+        normals[3 * plane] = normal.getX();
+        normals[3 * plane + 1] = normal.getY();
+        normals[3 * plane + 2] = normal.getZ();
+    }
+
+    /**
+     * Tests whether a box may be inside the pyramid. The test is conservative - a box is out only when
+     * it is entirely outside one of the bounding planes, so a box near an edge of the pyramid may be
+     * kept although it is out.
+     *
+     * @param box the box, null for an unbounded geometry
+     * @return false if the box is surely out of the pyramid
+     */
+    public boolean intersects(BoundingBox box) {
+        return box == null || intersects(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+    }
+
+    /**
+     * Tests whether the box of a node may be inside the pyramid, see {@link #intersects(BoundingBox)}.
+     *
+     * @param bounds the boxes of the nodes (see {@link FlatNodes})
+     * @param node   the index of the node
+     * @return false if the box is surely out of the pyramid
+     */
+    boolean intersects(float[] bounds, int node) {
+        int b = 6 * node;
+        return intersects(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4], bounds[b + 5]);
+    }
+
+    /**
+     * Tests the corner of the box that is farthest inside each plane - if even that corner is outside,
+     * the whole box is.
+     */
+    private boolean intersects(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        for (int p = 0; p < 3 * PLANES; p += 3) {
+            double nx = normals[p], ny = normals[p + 1], nz = normals[p + 2];
+            double x = nx > 0 ? maxX : minX, y = ny > 0 ? maxY : minY, z = nz > 0 ? maxZ : minZ;
+            if (nx * (x - ax) + ny * (y - ay) + nz * (z - az) < 0) return false;
+        }
+        return true;
+    }
+}
@@ -1,54 +1,413 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 
-import java.lang.reflect.Array;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Predicate;
 
 public class Geometries extends Intersectable {
+    /**
+     * The maximal number of geometries that {@link #cull} picks from a hierarchy
+     */
+    private static final int MAX_CANDIDATES = 32;
 
     private List<Intersectable> geometries;
+    /**
+     * The bounding volume hierarchy over the geometries, null if it was not built
+     */
+    private BVH bvh = null;
+    /**
+     * Whether the hierarchy is traversed through wide nodes
+     */
+    private boolean wideBVH = false;
+    /**
+     * The uniform grid over the geometries, null if it was not built
+     */
+    private Grid grid = null;
+    /**
+     * The cached box that bounds all the geometries (null while there are none)
+     */
+    private BoundingBox box = null;
+    /**
+     * Whether one of the geometries is unbounded, which makes the whole collection unbounded
+     */
+    private boolean unbounded = false;
+    /**
+     * Whether the cached bounds are up to date. They are recomputed on demand after geometries were added
+     * or the bounds of a geometry changed (volatile, so the rendering threads see the bounds it guards).
+     */
+    private volatile boolean boundsValid = true;
+
+    /**
+     * Statistics of a bounding volume hierarchy, to follow the time it takes to build it
+     *
+     * @param geometries the number of geometries in the hierarchy
+     * @param nodes      the number of nodes in the tree
+     * @param leaves     the number of leaves in the tree
+     * @param depth      the depth of the tree
+     * @param buildTime  the time it took to build the hierarchy, in milliseconds
+     * @param builtCost  the SAH cost of the hierarchy when it was built, relative to the surface areas
+     *                   of the geometries in it
+     * @param cost       the current relative SAH cost of the hierarchy, after it was refitted to moving geometries
+     */
+    public record BVHStatistics(int geometries, int nodes, int leaves, int depth, double buildTime,
+                                double builtCost, double cost) {
+    }
 
     public Geometries() {
-        this.geometries = new LinkedList<Intersectable>();
+        this.geometries = new ArrayList<Intersectable>();
     }
 
     public Geometries(Intersectable... geometries) {
-        if (geometries != null) {
-            this.geometries = (List.of(geometries));
-        }
-
+        this();
+        add(geometries);
     }
 
     public void add(Intersectable... geometries) {
         if (geometries != null) {
             this.geometries.addAll(List.of(geometries));
+            bvh = null;//the hierarchy does not contain the new geometries
+            grid = null;
+            for (Intersectable element : geometries) element.addParent(this);
+            invalidateBounds();
+        }
+    }
+
+    /**
+     * Drops the cached bounds of the collection and of the collections that contain it,
+     * after geometries were added to it or the bounds of one of its geometries changed.
+     */
+    void invalidateBounds() {
+        boundsValid = false;
+        boundsChanged();
+    }
+
+    /**
+     * Builds a bounding volume hierarchy (split by the surface area heuristic) over the geometries,
+     * so each ray is tested only against the geometries that are near to it.
+     * Nested Geometries are flattened into the hierarchy.
+     * The large sub-trees of a big scene are built in parallel on the common fork/join pool.
+     * Adding geometries afterwards drops the hierarchy, so it should be built when the scene is complete.
+     *
+     * @return this Geometries
+     */
+    public Geometries buildBVH() {
+        List<Intersectable> primitives = new ArrayList<>();
+        collectPrimitives(primitives);
+        bvh = new BVH(primitives, wideBVH);
+        grid = null;
+        return this;
+    }
+
+    /**
+     * Builds a bounding volume hierarchy, see {@link #buildBVH()}, that is traversed either through
+     * its binary nodes or through wide nodes - each testing the boxes of 4 children in one loop.
+     * The choice is kept when the hierarchy is rebuilt by {@link #refitBVH}.
+     *
+     * @param wide true for wide nodes, false for binary ones
+     * @return this Geometries
+     */
+    public Geometries buildBVH(boolean wide) {
+        wideBVH = wide;
+        return buildBVH();
+    }
+
+    /**
+     * Updates the bounding volume hierarchy after some of the geometries moved, for animated scenes.
+     * The boxes are refitted bottom-up from the moved geometries only, so the cost of a frame depends on
+     * the number of geometries that moved and not on the size of the scene. The refitted tree keeps its
+     * structure, so when its SAH cost grows too much (the moved geometries went far from their neighbours)
+     * the hierarchy is rebuilt instead. If the hierarchy was not built yet, it is built.
+     * Moving a nested Geometries refits all the geometries in it.
+     * The boxes are refitted in place, so this must not be called while rays are traced through the collection
+     * (like during {@link renderer.Camera#renderImage()}) - move the geometries and refit between the frames.
+     * A render starts its threads after the refit and joins them before it returns, so they see the refitted boxes.
+     *
+     * @param moved the geometries that moved since the hierarchy was built or last refitted
+     * @return this Geometries
+     */
+    public Geometries refitBVH(Intersectable... moved) {
+        List<Intersectable> primitives = new ArrayList<>();
+        for (Intersectable element : moved) {
+            if (element instanceof Geometries nested) nested.collectPrimitives(primitives);
+            else primitives.add(element);
+        }
+        if (bvh == null || bvh.refit(primitives)) buildBVH();
+        invalidateBounds();
+        return this;
+    }
+
+    /**
+     * Builds a uniform grid over the geometries instead of a bounding volume hierarchy.
+     * The grid suits dense scenes of evenly spread geometries, like a field of particles:
+     * it is built in linear time, and a ray walks through its cells from the nearest one on.
+     * Nested Geometries are flattened into the grid. If the grid was already built, it is rebuilt from
+     * the current boxes of the geometries in place, so animated scenes can rebuild it every frame.
+     * Like {@link #refitBVH}, it must not be called while rays are traced through the collection -
+     * rebuild the grid between the frames.
+     *
+     * @return this Geometries
+     */
+    public Geometries buildGrid() {
+        if (grid == null) {
+            List<Intersectable> primitives = new ArrayList<>();
+            collectPrimitives(primitives);
+            grid = new Grid(primitives);
+            bvh = null;
+        } else grid.rebuild();
+        invalidateBounds();
+        return this;
+    }
+
+    /**
+     * Picks the geometries that the rays inside a frustum may hit, e.g. the primary rays of a tile of the
+     * image, by their bounding boxes. The rays of the tile then intersect just the few candidates in a flat
+     * loop instead of traversing the whole scene. Unbounded geometries are always candidates.
+     * With a hierarchy, when more than {@value #MAX_CANDIDATES} geometries are candidates the hierarchy
+     * culls better than a flat loop does, so the whole collection is returned; a grid is never culled.
+     *
+     * @param frustum the frustum of the rays
+     * @return the candidate geometries, or this collection if it is not worth culling
+     */
+    public Geometries cull(Frustum frustum) {
+        if (grid != null) return this;
+        List<Intersectable> candidates = new ArrayList<>();
+        if (bvh != null) {
+            if (!bvh.collect(frustum, candidates, MAX_CANDIDATES)) return this;
+        } else {
+            for (Intersectable element : geometries) {
+                if (element instanceof Geometries nested) {
+                    Geometries culled = nested.cull(frustum);
+                    if (!culled.geometries.isEmpty()) candidates.add(culled);
+                } else if (frustum.intersects(element.getBoundingBox())) candidates.add(element);
+            }
+        }
+        return view(candidates);
+    }
+
+    /**
+     * Picks the geometries of the collection (including the geometries of nested collections) that pass a filter,
+     * e.g. the geometries that are left to be traced after the polygons were rasterized.
+     * The picked geometries get the same acceleration structure as this collection - a hierarchy with the
+     * same kind of nodes, a grid, or none. Like the culled geometries of {@link #cull}, the selection is meant
+     * for the current frame only.
+     *
+     * @param filter the test of the geometries to pick
+     * @return the picked geometries
+     */
+    public Geometries select(Predicate<Intersectable> filter) {
+        List<Intersectable> picked = new ArrayList<>();
+        for (Intersectable primitive : getPrimitives())
+            if (filter.test(primitive)) picked.add(primitive);
+        Geometries selection = view(picked);
+        if (bvh != null) selection.buildBVH(wideBVH);
+        else if (grid != null) selection.buildGrid();
+        return selection;
+    }
+
+    /**
+     * Creates a collection over geometries that belong to other collections, like the candidates of a tile
+     * or a selection.
+     * It does not register as their parent, so it is not kept alive by them once it is not used anymore,
+     * and it is not notified when they move - it is meant to be used for the current frame only.
+     *
+     * @param geometries the geometries of the view
+     * @return the view
+     */
+    private static Geometries view(List<Intersectable> geometries) {
+        Geometries view = new Geometries();
+        view.geometries.addAll(geometries);
+        view.boundsValid = false;
+        return view;
+    }
+
+    /**
+     * Returns the statistics of the bounding volume hierarchy - its size and how long it took to build it.
+     *
+     * @return the statistics, or null if the hierarchy was not built
+     */
+    public BVHStatistics getBVHStatistics() {
+        return bvh == null ? null : bvh.getStatistics();
+    }
+
+    /**
+     * Returns all the geometries in this collection and in the nested collections, flattened into one list.
+     *
+     * @return the geometries
+     */
+    public List<Intersectable> getPrimitives() {
+        List<Intersectable> primitives = new ArrayList<>();
+        collectPrimitives(primitives);
+        return primitives;
+    }
+
+    /**
+     * Collects all the geometries in this collection and in the nested collections
+     *
+     * @param primitives the list to collect into
+     */
+    private void collectPrimitives(List<Intersectable> primitives) {
+        for (Intersectable element : geometries) {
+            if (element instanceof Geometries nested) nested.collectPrimitives(primitives);
+            else primitives.add(element);
+        }
+    }
+
+    /**
+     * Returns the box that bounds all the geometries.
+     * The bounds are cached, and recomputed from the geometries after geometries were added (also to a nested
+     * collection), a geometry notified that it moved, or {@link #refitBVH} or {@link #buildGrid} were called.
+     *
+     * @return the bounding box, or null if one of the geometries is unbounded or there are no geometries
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (!boundsValid) computeBounds();
+        return unbounded ? null : box;
+    }
+
+    /**
+     * Recomputes the cached bounds from the boxes of the geometries
+     */
+    private synchronized void computeBounds() {
+        if (boundsValid) return;//another thread has just computed them
+        BoundingBox bounds = null;
+        boolean anyUnbounded = false;
+        for (Intersectable element : geometries) {
+            BoundingBox elementBox = element.getBoundingBox();
+            if (elementBox == null) anyUnbounded = true;
+            else bounds = bounds == null ? elementBox : bounds.union(elementBox);
         }
+        box = bounds;
+        unbounded = anyUnbounded;
+        boundsValid = true;
     }
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        boolean intersectExist = false;
+        if (bvh != null) {
+            return bvh.findGeoIntersections(ray);
+        }
+        if (grid != null) {
+            return grid.findGeoIntersections(ray);
+        }
+        BoundingBox bounds = getBoundingBox();
+        if (bounds != null && bounds.intersect(ray, Double.POSITIVE_INFINITY) == Double.POSITIVE_INFINITY) {
+            return null;//the ray misses the box of the whole collection
+        }
+        List<GeoPoint> intersections = null;
+        for (Intersectable element : geometries) {//a single pass - each geometry is intersected once
+            intersections = addAll(intersections, element.findGeoIntersections(ray));
+        }
+        return intersections;
+    }
+
+    /**
+     * Adds intersection points to the list of the intersections found so far.
+     * A new list is allocated only when points from a second geometry are added,
+     * so a ray that hits a single geometry just passes its list on.
+     *
+     * @param intersections the intersections found so far (may be null)
+     * @param points        the intersections to add (may be null)
+     * @return the list of all the intersections, or null if there are none
+     */
+    static List<GeoPoint> addAll(List<GeoPoint> intersections, List<GeoPoint> points) {
+        if (points == null) return intersections;
+        if (intersections == null) return points;
+        if (!(intersections instanceof ArrayList)) {//the list of a single geometry may be immutable
+            intersections = new ArrayList<>(intersections);
+        }
+        intersections.addAll(points);
+        return intersections;
+    }
+
+    /**
+     * Finds the closest intersection in a single pass over the geometries,
+     * the maximal distance of the hit shrinks whenever a nearer intersection is found.
+     *
+     * @param ray the ray to intersect with
+     * @param hit the closest hit so far
+     * @return true if the hit was updated
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        if (bvh != null) {
+            return bvh.findClosestHit(ray, hit);
+        }
+        if (grid != null) {
+            return grid.findClosestHit(ray, hit);
+        }
+        BoundingBox bounds = getBoundingBox();
+        if (bounds != null && bounds.intersect(ray, hit.getDistance()) == Double.POSITIVE_INFINITY) {
+            return false;//the ray misses the box of the whole collection
+        }
+        boolean found = false;
         for (Intersectable element : geometries) {
-            if (element.findIntersections(ray) != null) {
-                intersectExist = true;
-                break;
-            }
+            if (element.findClosestHitHelper(ray, hit)) found = true;
+        }
+        return found;
+    }
+
+    /**
+     * Finds the closest hits of a packet of rays. With a hierarchy the rays traverse it together,
+     * otherwise they are intersected one by one.
+     *
+     * @param packet the rays and their closest hits so far
+     */
+    @Override
+    protected void findClosestHitsHelper(RayPacket packet) {
+        if (bvh != null) bvh.findClosestHits(packet);
+        else super.findClosestHitsHelper(packet);
+    }
+
+    /**
+     * Finds the closest hits of a stream of rays. Without an acceleration structure each geometry
+     * intersects the whole stream in its own loop, otherwise each ray traverses the structure.
+     *
+     * @param rays the rays and their closest hits so far
+     */
+    @Override
+    protected void findClosestHitsHelper(RayStream rays) {
+        if (bvh != null || grid != null) {
+            super.findClosestHitsHelper(rays);
+            return;
         }
-        if (intersectExist == false) {
-            return null;
+        for (Intersectable element : geometries) {
+            element.findClosestHitsHelper(rays);
         }
+    }
 
-        ArrayList<GeoPoint> IntersectionsPoints = new ArrayList<GeoPoint>();
+    /**
+     * Accumulates the transparency of the geometries along a shadow ray,
+     * stopping as soon as the ray is blocked.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the accumulated transparency
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        if (bvh != null) {
+            return bvh.findTransparency(ray, maxDistance, ktr, minK);
+        }
+        if (grid != null) {
+            return grid.findTransparency(ray, maxDistance, ktr, minK);
+        }
+        BoundingBox bounds = getBoundingBox();
+        if (bounds != null && bounds.intersect(ray, maxDistance) == Double.POSITIVE_INFINITY) {
+            return ktr;//the ray misses the box of the whole collection
+        }
         for (Intersectable element : geometries) {
-            if (element.findIntersections(ray) != null) {
-                IntersectionsPoints.addAll(element.findGeoIntersections(ray));
+            ktr = element.findTransparencyHelper(ray, maxDistance, ktr, minK);
+            if (ktr.lowerThan(minK)) {
+                return ktr;
             }
         }
-        return List.of(IntersectionsPoints.toArray(new GeoPoint[0]));
+        return ktr;
     }
-}
\ No newline at end of file
+}
@@ -10,7 +10,25 @@ import primitives.Point;
  */
 public abstract class Geometry extends Intersectable {
     protected Color emission = Color.BLACK;
-    private Material material = new Material();
+    private Material material;
+
+    /**
+     * Creates a geometry with a default material.
+     */
+    protected Geometry() {
+        this(new Material());
+    }
+
+    /**
+     * Creates a geometry with a given material. The primitives of a composed geometry (like the faces
+     * of a mesh) are created for each intersection and take the material of their geometry,
+     * so they are created without one of their own.
+     *
+     * @param material the material, or null for a primitive that takes the material of its geometry
+     */
+    Geometry(Material material) {
+        this.material = material;
+    }
 
     /**
      * Returns the emission color of the geometry.
@@ -35,6 +53,31 @@ public abstract class Geometry extends Intersectable {
 
     public abstract Vector getNormal(Point point);//return the normal vector
 
+    /**
+     * Returns the normal at a point on a primitive of the geometry.
+     * A geometry made of several primitives (like a mesh) overrides it,
+     * a single primitive just returns its normal.
+     *
+     * @param point     the point on the geometry
+     * @param primitive the index of the primitive, -1 for a single primitive
+     * @return the normal at the point
+     */
+    protected Vector getNormal(Point point, int primitive) {
+        return getNormal(point);
+    }
+
+    /**
+     * Returns a primitive of the geometry as a geometry of its own.
+     * A geometry made of several primitives (like a mesh) overrides it,
+     * a single primitive just returns itself.
+     *
+     * @param primitive the index of the primitive, -1 for a single primitive
+     * @return the primitive
+     */
+    protected Geometry getPrimitive(int primitive) {
+        return this;
+    }
+
     /**
      * Returns the material of this object.
      *
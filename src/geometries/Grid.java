@@ -0,0 +1,418 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import geometries.Intersectable.Hit;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid over a list of intersectables - an alternative to {@link BVH} for dense scenes whose
+ * geometries are spread evenly, like a field of particles. The box of the scene is divided into equal
+ * cells, about {@link #DENSITY} cells per geometry, and each cell lists the geometries whose boxes overlap it.
+ * A ray walks through the cells it crosses in order (3D-DDA), so the closest hit is usually found in the
+ * first cells and the walk stops there. A geometry that spans several cells is tested once per ray,
+ * thanks to a mailbox that keeps the last ray each geometry was tested with.
+ * The cells are kept in two flat arrays (the start of each cell and the geometries of all the cells),
+ * which are reused when the grid is rebuilt after the geometries moved.
+ * Geometries without a bounding box (like an infinite plane) are kept aside and always tested.
+ */
+class Grid {
+    /**
+     * The number of cells per geometry
+     */
+    private static final double DENSITY = 2;
+    /**
+     * The maximal number of cells along an axis
+     */
+    private static final int MAX_RESOLUTION = 256;
+
+    /**
+     * The bounded geometries and the geometries that have no bounding box
+     */
+    private final Intersectable[] items;
+    private final Intersectable[] unbounded;
+    /**
+     * The bounds of the boxes of the geometries (minX, minY, minZ, maxX, maxY, maxZ of each)
+     */
+    private final double[] bounds;
+    /**
+     * The box of the grid and the size of its cells along each axis
+     */
+    private double minX, minY, minZ, maxX, maxY, maxZ;
+    private BoundingBox box = null;
+    private double cellX, cellY, cellZ;
+    /**
+     * The number of cells along each axis
+     */
+    private int resX, resY, resZ;
+    /**
+     * The position of the first geometry of each cell in {@link #cellItems} (one more for the end of the last cell)
+     */
+    private int[] cellStarts = new int[0];
+    /**
+     * The indices of the geometries of the cells, cell after cell
+     */
+    private int[] cellItems = new int[0];
+    /**
+     * The mailboxes of the current thread - the last ray each geometry was tested with
+     */
+    private final ThreadLocal<Mailbox> mailboxes;
+
+    /**
+     * The rays each geometry was last tested with, in one thread
+     */
+    private static class Mailbox {
+        /**
+         * The number of the last ray of each geometry
+         */
+        final int[] rays;
+        /**
+         * The number of the current ray
+         */
+        int ray = 0;
+
+        Mailbox(int size) {
+            rays = new int[size];
+        }
+
+        /**
+         * Starts a new ray.
+         *
+         * @return the number of the ray
+         */
+        int next() {
+            if (++ray == 0) {//the numbers wrapped around - forget the old rays
+                Arrays.fill(rays, 0);
+                ray = 1;
+            }
+            return ray;
+        }
+    }
+
+    /**
+     * Builds a grid over the given geometries.
+     *
+     * @param geometries the geometries to build the grid over
+     */
+    Grid(List<Intersectable> geometries) {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<Intersectable> others = new ArrayList<>();
+        for (Intersectable geometry : geometries) {
+            if (geometry.getBoundingBox() == null) others.add(geometry);
+            else bounded.add(geometry);
+        }
+        unbounded = others.toArray(new Intersectable[0]);
+        items = bounded.toArray(new Intersectable[0]);
+        bounds = new double[6 * items.length];
+        mailboxes = ThreadLocal.withInitial(() -> new Mailbox(items.length));
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the grid from the current boxes of the geometries, after some of them moved.
+     * The geometries are sorted into the cells by two passes (counting and filling), so the rebuild takes
+     * a time linear in the number of geometries, and the arrays are reused when they are large enough.
+     */
+    void rebuild() {
+        int n = items.length;
+        if (n == 0) return;
+        minX = minY = minZ = Double.POSITIVE_INFINITY;
+        maxX = maxY = maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            BoundingBox box = items[i].getBoundingBox();
+            int b = 6 * i;
+            bounds[b] = box.minX;
+            bounds[b + 1] = box.minY;
+            bounds[b + 2] = box.minZ;
+            bounds[b + 3] = box.maxX;
+            bounds[b + 4] = box.maxY;
+            bounds[b + 5] = box.maxZ;
+            if (box.minX < minX) minX = box.minX;
+            if (box.minY < minY) minY = box.minY;
+            if (box.minZ < minZ) minZ = box.minZ;
+            if (box.maxX > maxX) maxX = box.maxX;
+            if (box.maxY > maxY) maxY = box.maxY;
+            if (box.maxZ > maxZ) maxZ = box.maxZ;
+        }
+        box = new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+        chooseResolution(n);
+
+        // count the geometries of each cell, then turn the counts into the starts of the cells
+        int cells = resX * resY * resZ;
+        if (cellStarts.length < cells + 1) cellStarts = new int[cells + 1];
+        else Arrays.fill(cellStarts, 0, cells + 1, 0);
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            int b = 6 * i;
+            int x0 = cellOf(bounds[b], minX, cellX, resX), x1 = cellOf(bounds[b + 3], minX, cellX, resX);
+            int y0 = cellOf(bounds[b + 1], minY, cellY, resY), y1 = cellOf(bounds[b + 4], minY, cellY, resY);
+            int z0 = cellOf(bounds[b + 2], minZ, cellZ, resZ), z1 = cellOf(bounds[b + 5], minZ, cellZ, resZ);
+            for (int z = z0; z <= z1; z++)
+                for (int y = y0; y <= y1; y++)
+                    for (int x = x0; x <= x1; x++)
+                        cellStarts[(z * resY + y) * resX + x + 1]++;
+            total += (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+        }
+        for (int c = 0; c < cells; c++) cellStarts[c + 1] += cellStarts[c];
+        if (cellItems.length < total) cellItems = new int[total];
+        // fill the cells, using the starts as running positions and shifting them back afterwards
+        for (int i = 0; i < n; i++) {
+            int b = 6 * i;
+            int x0 = cellOf(bounds[b], minX, cellX, resX), x1 = cellOf(bounds[b + 3], minX, cellX, resX);
+            int y0 = cellOf(bounds[b + 1], minY, cellY, resY), y1 = cellOf(bounds[b + 4], minY, cellY, resY);
+            int z0 = cellOf(bounds[b + 2], minZ, cellZ, resZ), z1 = cellOf(bounds[b + 5], minZ, cellZ, resZ);
+            for (int z = z0; z <= z1; z++)
+                for (int y = y0; y <= y1; y++)
+                    for (int x = x0; x <= x1; x++)
+                        cellItems[cellStarts[(z * resY + y) * resX + x]++] = i;
+        }
+        for (int c = cells; c > 0; c--) cellStarts[c] = cellStarts[c - 1];
+        cellStarts[0] = 0;
+    }
+
+    /**
+     * Chooses the number of cells along each axis, so the cells are about cubes
+     * and there are about {@link #DENSITY} cells per geometry.
+     * An axis along which the scene is flat gets a single cell.
+     *
+     * @param n the number of geometries
+     */
+    private void chooseResolution(int n) {
+        double[] extents = {maxX - minX, maxY - minY, maxZ - minZ};
+        double volume = 1;
+        int dimensions = 0;
+        for (double extent : extents)
+            if (extent > 0) {
+                volume *= extent;
+                dimensions++;
+            }
+        double cell = dimensions == 0 ? 1 : Math.pow(volume / (DENSITY * n), 1.0 / dimensions);
+        int[] res = new int[3];
+        for (int axis = 0; axis < 3; axis++)
+            res[axis] = extents[axis] > 0 ? (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(extents[axis] / cell))) : 1;
+        resX = res[0];
+        resY = res[1];
+        resZ = res[2];
+        cellX = extents[0] > 0 ? extents[0] / resX : 1;
+        cellY = extents[1] > 0 ? extents[1] / resY : 1;
+        cellZ = extents[2] > 0 ? extents[2] / resZ : 1;
+    }
+
+    /**
+     * Returns the cell of a coordinate along an axis, clamped to the grid
+     */
+    private static int cellOf(double value, double min, double cell, int res) {
+        int c = (int) ((value - min) / cell);
+        return c < 0 ? 0 : c >= res ? res - 1 : c;
+    }
+
+    /**
+     * Returns the box of the grid.
+     *
+     * @return the box of the bounded geometries, or null if there are none
+     */
+    BoundingBox getBoundingBox() {
+        return box;
+    }
+
+    /**
+     * Returns the number of cells along each axis.
+     *
+     * @return the resolution of the grid along the x, y and z axes
+     */
+    int[] getResolution() {
+        return new int[]{resX, resY, resZ};
+    }
+
+    /**
+     * A walk of a ray through the cells of the grid (3D-DDA). Each step moves to the neighbour cell
+     * through the nearest of the cell's walls, found by the distances of the next wall along each axis.
+     */
+    private class Walk {
+        /**
+         * The current cell, the steps along the axes (1 or -1), and the cell after the last one along each axis
+         */
+        int x, y, z;
+        final int stepX, stepY, stepZ, endX, endY, endZ;
+        /**
+         * The distances of the next walls along the axes, and the distances between the walls
+         */
+        double nextX, nextY, nextZ;
+        final double deltaX, deltaY, deltaZ;
+
+        /**
+         * Starts the walk in the cell where the ray enters the grid.
+         *
+         * @param ox     the x coordinate of the ray origin
+         * @param oy     the y coordinate of the ray origin
+         * @param oz     the z coordinate of the ray origin
+         * @param dx     the x coordinate of the ray direction
+         * @param dy     the y coordinate of the ray direction
+         * @param dz     the z coordinate of the ray direction
+         * @param tEnter the distance in which the ray enters the grid
+         */
+        Walk(double ox, double oy, double oz, double dx, double dy, double dz, double tEnter) {
+            x = cellOf(ox + dx * tEnter, minX, cellX, resX);
+            y = cellOf(oy + dy * tEnter, minY, cellY, resY);
+            z = cellOf(oz + dz * tEnter, minZ, cellZ, resZ);
+            stepX = dx < 0 ? -1 : 1;
+            stepY = dy < 0 ? -1 : 1;
+            stepZ = dz < 0 ? -1 : 1;
+            endX = dx < 0 ? -1 : resX;
+            endY = dy < 0 ? -1 : resY;
+            endZ = dz < 0 ? -1 : resZ;
+            nextX = dx == 0 ? Double.POSITIVE_INFINITY : (minX + (x + (dx < 0 ? 0 : 1)) * cellX - ox) / dx;
+            nextY = dy == 0 ? Double.POSITIVE_INFINITY : (minY + (y + (dy < 0 ? 0 : 1)) * cellY - oy) / dy;
+            nextZ = dz == 0 ? Double.POSITIVE_INFINITY : (minZ + (z + (dz < 0 ? 0 : 1)) * cellZ - oz) / dz;
+            deltaX = dx == 0 ? Double.POSITIVE_INFINITY : cellX / Math.abs(dx);
+            deltaY = dy == 0 ? Double.POSITIVE_INFINITY : cellY / Math.abs(dy);
+            deltaZ = dz == 0 ? Double.POSITIVE_INFINITY : cellZ / Math.abs(dz);
+        }
+
+        /**
+         * Returns the index of the current cell
+         */
+        int cell() {
+            return (z * resY + y) * resX + x;
+        }
+
+        /**
+         * Returns the distance in which the ray leaves the current cell
+         */
+        double exit() {
+            return Math.min(nextX, Math.min(nextY, nextZ));
+        }
+
+        /**
+         * Moves to the next cell along the ray.
+         *
+         * @return false if the ray left the grid
+         */
+        boolean step() {
+            if (nextX <= nextY && nextX <= nextZ) {
+                x += stepX;
+                nextX += deltaX;
+                return x != endX;
+            }
+            if (nextY <= nextZ) {
+                y += stepY;
+                nextY += deltaY;
+                return y != endY;
+            }
+            z += stepZ;
+            nextZ += deltaZ;
+            return z != endZ;
+        }
+    }
+
+    /**
+     * Starts a walk of a ray through the grid.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance along the ray
+     * @return the walk, or null if the ray misses the grid before maxDistance
+     */
+    private Walk walk(Ray ray, double maxDistance) {
+        if (items.length == 0) return null;
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double tEnter = box.intersect(ox, oy, oz, 1 / dx, 1 / dy, 1 / dz, maxDistance);
+        return tEnter == Double.POSITIVE_INFINITY ? null : new Walk(ox, oy, oz, dx, dy, dz, tEnter);
+    }
+
+    /**
+     * Finds all the intersections of the ray with the geometries in the grid.
+     *
+     * @param ray the ray
+     * @return the intersection points, or null if there are none
+     */
+    List<GeoPoint> findGeoIntersections(Ray ray) {
+        List<GeoPoint> intersections = null;
+        for (Intersectable geometry : unbounded)
+            intersections = Geometries.addAll(intersections, geometry.findGeoIntersections(ray));
+        Walk walk = walk(ray, Double.POSITIVE_INFINITY);
+        if (walk == null) return intersections;
+        Mailbox mailbox = mailboxes.get();
+        int rayNumber = mailbox.next();
+        do {
+            int cell = walk.cell();
+            for (int i = cellStarts[cell], end = cellStarts[cell + 1]; i < end; i++) {
+                int item = cellItems[i];
+                if (mailbox.rays[item] == rayNumber) continue;//already tested in a former cell
+                mailbox.rays[item] = rayNumber;
+                intersections = Geometries.addAll(intersections, items[item].findGeoIntersections(ray));
+            }
+        } while (walk.step());
+        return intersections;
+    }
+
+    /**
+     * Finds the closest intersection of the ray with the geometries in the grid.
+     * The walk stops at the first cell that the closest hit so far is not beyond,
+     * since all the following cells are farther.
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if the hit was updated
+     */
+    boolean findClosestHit(Ray ray, Hit hit) {
+        boolean found = false;
+        for (Intersectable geometry : unbounded)
+            if (geometry.findClosestHitHelper(ray, hit)) found = true;
+        Walk walk = walk(ray, hit.getDistance());
+        if (walk == null) return found;
+        Mailbox mailbox = mailboxes.get();
+        int rayNumber = mailbox.next();
+        do {
+            int cell = walk.cell();
+            for (int i = cellStarts[cell], end = cellStarts[cell + 1]; i < end; i++) {
+                int item = cellItems[i];
+                // a geometry tested in a former cell has already recorded its closest hit
+                if (mailbox.rays[item] == rayNumber) continue;
+                mailbox.rays[item] = rayNumber;
+                if (items[item].findClosestHitHelper(ray, hit)) found = true;
+            }
+        } while (hit.getDistance() > walk.exit() && walk.step());
+        return found;
+    }
+
+    /**
+     * Accumulates the transparency of the geometries in the grid along a shadow ray,
+     * the walk stops as soon as the ray is blocked or passes maxDistance.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the accumulated transparency
+     */
+    Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        for (Intersectable geometry : unbounded) {
+            ktr = geometry.findTransparencyHelper(ray, maxDistance, ktr, minK);
+            if (ktr.lowerThan(minK)) return ktr;
+        }
+        Walk walk = walk(ray, maxDistance);
+        if (walk == null) return ktr;
+        Mailbox mailbox = mailboxes.get();
+        int rayNumber = mailbox.next();
+        do {
+            int cell = walk.cell();
+            for (int i = cellStarts[cell], end = cellStarts[cell + 1]; i < end; i++) {
+                int item = cellItems[i];
+                if (mailbox.rays[item] == rayNumber) continue;//its transparency was already taken
+                mailbox.rays[item] = rayNumber;
+                ktr = items[item].findTransparencyHelper(ray, maxDistance, ktr, minK);
+                if (ktr.lowerThan(minK)) return ktr;
+            }
+        } while (walk.exit() < maxDistance && walk.step());
+        return ktr;
+    }
+}
@@ -0,0 +1,367 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A placed copy of a shared group of geometries, through an affine transform.
+ * The geometries are not copied - the rays are transformed into the space of the group (object space)
+ * and intersected there, so repeating a sub-assembly costs one instance object per copy.
+ * The group builds its own bounding volume hierarchy once, and a {@link Geometries} that holds the
+ * instances builds the top level hierarchy over their transformed boxes.
+ * The intersection points are returned in world space, on {@link PlacedGeometry} views of the geometries
+ * of the shared group, which give their normals in world space.
+ */
+public class Instance extends Intersectable {
+    /**
+     * The shared geometries
+     */
+    private final Geometries object;
+    /**
+     * The transform from object space to world space, as the rows of a 3x4 matrix
+     * (the linear part in columns 0-2 and the translation in column 3)
+     */
+    private final double[] toWorld = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0};
+    /**
+     * The transform from world space to object space, in the same layout
+     */
+    private final double[] toObject = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0};
+
+    /**
+     * Creates an instance of a group of geometries, placed with the identity transform.
+     * The hierarchy of the group is built if it was not built yet, so all the instances share it.
+     *
+     * @param object the shared geometries
+     */
+    public Instance(Geometries object) {
+        this.object = object;
+        if (object.getBVHStatistics() == null) object.buildBVH();
+    }
+
+    /**
+     * Returns the shared geometries of the instance.
+     *
+     * @return the geometries in object space
+     */
+    public Geometries getObject() {
+        return object;
+    }
+
+    /**
+     * Moves the instance, after the transforms applied so far.
+     *
+     * @param offset the offset to move the instance by
+     * @return the instance itself
+     */
+    public Instance translate(Vector offset) {
+        return transform(1, 0, 0, offset.getX(), 0, 1, 0, offset.getY(), 0, 0, 1, offset.getZ());
+    }
+
+    /**
+     * Scales the instance around the origin, after the transforms applied so far.
+     *
+     * @param factor the scale factor
+     * @return the instance itself
+     * @throws IllegalArgumentException if the factor is zero
+     */
+    public Instance scale(double factor) {
+        return scale(factor, factor, factor);
+    }
+
+    /**
+     * Scales the instance around the origin by a factor along each axis, after the transforms applied so far.
+     *
+     * @param x the scale factor along the x axis
+     * @param y the scale factor along the y axis
+     * @param z the scale factor along the z axis
+     * @return the instance itself
+     * @throws IllegalArgumentException if one of the factors is zero
+     */
+    public Instance scale(double x, double y, double z) {
+        return transform(x, 0, 0, 0, 0, y, 0, 0, 0, 0, z, 0);
+    }
+
+    /**
+     * Rotates the instance around an axis through the origin, after the transforms applied so far.
+     *
+     * @param axis  the direction of the axis
+     * @param angle the rotation angle in degrees (counterclockwise when looking against the axis)
+     * @return the instance itself
+     */
+    public Instance rotate(Vector axis, double angle) {
+        Vector u = axis.normalize();
+        double x = u.getX(), y = u.getY(), z = u.getZ();
+        double cos = Math.cos(Math.toRadians(angle)), sin = Math.sin(Math.toRadians(angle)), c = 1 - cos;
+        return transform(cos + x * x * c, x * y * c - z * sin, x * z * c + y * sin, 0,
+                y * x * c + z * sin, cos + y * y * c, y * z * c - x * sin, 0,
+                z * x * c - y * sin, z * y * c + x * sin, cos + z * z * c, 0);
+    }
+
+    /**
+     * Applies an affine transform after the transforms applied so far,
+     * and computes the inverse of the combined transform.
+     * The collections that contain the instance recompute their boxes, a hierarchy over it must be refitted.
+     *
+     * @param t the rows of the 3x4 matrix of the transform
+     * @return the instance itself
+     * @throws IllegalArgumentException if the transform is not invertible
+     */
+    private Instance transform(double... t) {
+        double[] m = new double[12];
+        for (int i = 0; i < 3; ++i)
+            for (int j = 0; j < 4; ++j)
+                m[4 * i + j] = t[4 * i] * toWorld[j] + t[4 * i + 1] * toWorld[4 + j] + t[4 * i + 2] * toWorld[8 + j]
+                        + (j == 3 ? t[4 * i + 3] : 0);
+        // the inverse of the linear part by its adjugate
+        double a00 = m[5] * m[10] - m[6] * m[9], a01 = m[2] * m[9] - m[1] * m[10], a02 = m[1] * m[6] - m[2] * m[5];
+        double a10 = m[6] * m[8] - m[4] * m[10], a11 = m[0] * m[10] - m[2] * m[8], a12 = m[2] * m[4] - m[0] * m[6];
+        double a20 = m[4] * m[9] - m[5] * m[8], a21 = m[1] * m[8] - m[0] * m[9], a22 = m[0] * m[5] - m[1] * m[4];
+        double det = m[0] * a00 + m[1] * a10 + m[2] * a20;
+        if (det == 0) throw new IllegalArgumentException("The transform of an instance must be invertible");
+        double[] inverse = {a00, a01, a02, 0, a10, a11, a12, 0, a20, a21, a22, 0};
+        for (int i = 0; i < 3; ++i) {
+            for (int j = 0; j < 3; ++j) inverse[4 * i + j] /= det;
+            inverse[4 * i + 3] = -(inverse[4 * i] * m[3] + inverse[4 * i + 1] * m[7] + inverse[4 * i + 2] * m[11]);
+        }
+        System.arraycopy(m, 0, toWorld, 0, 12);
+        System.arraycopy(inverse, 0, toObject, 0, 12);
+        boundsChanged();//the box of the instance moved with it
+        return this;
+    }
+
+    /**
+     * Transforms a point from object space to world space.
+     *
+     * @param point the point in object space
+     * @return the point in world space
+     */
+    public Point pointToWorld(Point point) {
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        return new Point(toWorld[0] * x + toWorld[1] * y + toWorld[2] * z + toWorld[3],
+                toWorld[4] * x + toWorld[5] * y + toWorld[6] * z + toWorld[7],
+                toWorld[8] * x + toWorld[9] * y + toWorld[10] * z + toWorld[11]);
+    }
+
+    /**
+     * Transforms a point from world space to object space.
+     *
+     * @param point the point in world space
+     * @return the point in object space
+     */
+    public Point pointToObject(Point point) {
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        return new Point(toObject[0] * x + toObject[1] * y + toObject[2] * z + toObject[3],
+                toObject[4] * x + toObject[5] * y + toObject[6] * z + toObject[7],
+                toObject[8] * x + toObject[9] * y + toObject[10] * z + toObject[11]);
+    }
+
+    /**
+     * Transforms a normal from object space to world space - by the transposed inverse of the transform,
+     * so the normal stays orthogonal to the surface under a non uniform scale.
+     *
+     * @param normal the normal in object space
+     * @return the normalized normal in world space
+     */
+    public Vector normalToWorld(Vector normal) {
+        double x = normal.getX(), y = normal.getY(), z = normal.getZ();
+        return new Vector(toObject[0] * x + toObject[4] * y + toObject[8] * z,
+                toObject[1] * x + toObject[5] * y + toObject[9] * z,
+                toObject[2] * x + toObject[6] * y + toObject[10] * z).normalize();
+    }
+
+    /**
+     * Transforms a ray from world space to object space.
+     * The direction is normalized again, so a distance along the object space ray
+     * is {@link #stretch(Ray)} times the distance along the world space ray.
+     *
+     * @param ray the ray in world space
+     * @return the ray in object space
+     */
+    private Ray toObject(Ray ray) {
+        Vector dir = ray.getDir();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        return new Ray(pointToObject(ray.getP0()),
+                new Vector(toObject[0] * dx + toObject[1] * dy + toObject[2] * dz,
+                        toObject[4] * dx + toObject[5] * dy + toObject[6] * dz,
+                        toObject[8] * dx + toObject[9] * dy + toObject[10] * dz));
+    }
+
+    /**
+     * Returns the ratio of distances along the object space ray to distances along the world space ray -
+     * the length of the world space direction of the ray in object space.
+     *
+     * @param ray the ray in world space
+     * @return the ratio of the distances
+     */
+    private double stretch(Ray ray) {
+        Vector dir = ray.getDir();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double x = toObject[0] * dx + toObject[1] * dy + toObject[2] * dz;
+        double y = toObject[4] * dx + toObject[5] * dy + toObject[6] * dz;
+        double z = toObject[8] * dx + toObject[9] * dy + toObject[10] * dz;
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+
+    /**
+     * Returns the box that bounds the transformed box of the shared geometries.
+     *
+     * @return the bounding box, or null if the geometries are unbounded
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = object.getBoundingBox();
+        if (box == null) return null;
+        // each world coordinate is the translation plus the extreme contributions of the three object axes
+        double[] min = new double[3], max = new double[3];
+        double[] boxMin = {box.minX, box.minY, box.minZ}, boxMax = {box.maxX, box.maxY, box.maxZ};
+        for (int i = 0; i < 3; ++i) {
+            min[i] = max[i] = toWorld[4 * i + 3];
+            for (int j = 0; j < 3; ++j) {
+                double a = toWorld[4 * i + j] * boxMin[j], b = toWorld[4 * i + j] * boxMax[j];
+                min[i] += a < b ? a : b;
+                max[i] += a < b ? b : a;
+            }
+        }
+        return new BoundingBox(min[0], min[1], min[2], max[0], max[1], max[2]);
+    }
+
+    /**
+     * Returns a geometry of the shared group as it is placed by the instance.
+     *
+     * @param geometry the geometry in object space
+     * @return the geometry in world space
+     */
+    PlacedGeometry place(Geometry geometry) {
+        return new PlacedGeometry(geometry);
+    }
+
+    /**
+     * A geometry of the shared group as it is placed by the instance, in world space. Placed geometries are
+     * created only for the intersection points, and they share the material and the emission of the geometry.
+     * The normal at a world space point is the normal of the geometry at the point in object space,
+     * transformed back by {@link #normalToWorld}.
+     */
+    public class PlacedGeometry extends Geometry {
+        /**
+         * The geometry in object space
+         */
+        private final Geometry geometry;
+
+        private PlacedGeometry(Geometry geometry) {
+            super(null);
+            this.geometry = geometry;
+        }
+
+        /**
+         * Returns the geometry of the shared group, in object space.
+         *
+         * @return the geometry
+         */
+        public Geometry getGeometry() {
+            return geometry;
+        }
+
+        /**
+         * Returns the instance that places the geometry.
+         *
+         * @return the instance
+         */
+        public Instance getInstance() {
+            return Instance.this;
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return normalToWorld(geometry.getNormal(pointToObject(point)));
+        }
+
+        @Override
+        public Color getEmission() {
+            return geometry.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            return geometry.getMaterial();
+        }
+
+        /**
+         * A placed geometry shares the emission of the geometry, so it can't have one of its own.
+         *
+         * @throws UnsupportedOperationException always - set the emission of the geometry
+         */
+        @Override
+        public Geometry setEmission(Color emission) {
+            throw new UnsupportedOperationException("The emission of a placed geometry is the emission of the geometry");
+        }
+
+        /**
+         * A placed geometry shares the material of the geometry, so it can't have one of its own.
+         *
+         * @throws UnsupportedOperationException always - set the material of the geometry
+         */
+        @Override
+        public Geometry setMaterial(Material material) {
+            throw new UnsupportedOperationException("The material of a placed geometry is the material of the geometry");
+        }
+
+        /**
+         * Placed geometries are created for each intersection, so two are equal if they are the same geometry
+         * placed by the same instance.
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return obj instanceof PlacedGeometry other && other.getInstance() == Instance.this
+                    && other.geometry.equals(geometry);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(Instance.this) + geometry.hashCode();
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+            return placeAll(geometry.findGeoIntersections(toObject(ray)));
+        }
+    }
+
+    /**
+     * Moves intersection points in object space to world space, on the placed geometries.
+     *
+     * @param points the points in object space, or null
+     * @return the points in world space, or null if there are none
+     */
+    private List<GeoPoint> placeAll(List<GeoPoint> points) {
+        if (points == null) return null;
+        List<GeoPoint> intersections = new ArrayList<>(points.size());
+        for (GeoPoint gp : points) intersections.add(new GeoPoint(place(gp.geometry), pointToWorld(gp.point)));
+        return intersections;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        return placeAll(object.findGeoIntersections(toObject(ray)));
+    }
+
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        double stretch = stretch(ray);
+        Ray objectRay = toObject(ray);
+        Hit local = new Hit(objectRay, hit.getDistance() * stretch);
+        return object.findClosestHitHelper(objectRay, local) && hit.update(this, local, local.getDistance() / stretch);
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        return object.findTransparencyHelper(toObject(ray), maxDistance * stretch(ray), ktr, minK);
+    }
+}
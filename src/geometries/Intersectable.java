@@ -1,9 +1,12 @@
 package geometries;
 
 import primitives.Double3;
+import primitives.Material;
 import primitives.Ray;
 import primitives.Point;
+import primitives.Vector;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static primitives.Util.isZero;
@@ -12,9 +15,17 @@ import static primitives.Util.isZero;
  * An abstract class that contains all the methods and fields common to all geometries
  */
 public abstract class Intersectable {
+    /**
+     * The collections that contain the object, which cache a box around it (null while there are none)
+     */
+    private List<Geometries> parents = null;
+
     public List<Point> findIntersections(Ray ray) {
         var geoList = findGeoIntersections(ray);
-        return geoList == null ? null : geoList.stream().map(gp -> gp.point).toList();
+        if (geoList == null) return null;
+        List<Point> points = new ArrayList<>(geoList.size());
+        for (GeoPoint gp : geoList) points.add(gp.point);
+        return points;
     }
 
     /**
@@ -58,6 +69,196 @@ public abstract class Intersectable {
         }
     }
 
+    /**
+     * A record of the closest intersection found so far along a ray.
+     * During the search the geometries report only the distance of an intersection,
+     * the intersected geometry and the index of the intersected primitive in it (for composite
+     * geometries like a mesh). The point, the normal and the material of the final hit are computed
+     * only when they are asked for, and only once.
+     * A hit inside an {@link Instance} keeps the hit in the space of the instanced geometries,
+     * to compute the normal there and transform it back.
+     */
+    public static class Hit {
+        /**
+         * The ray the hit is on
+         */
+        private final Ray ray;
+        /**
+         * The distance of the hit from the head of the ray (the maximal distance until a hit is found)
+         */
+        private double distance;
+        /**
+         * The intersected geometry, null until a hit is found
+         */
+        private Geometry geometry = null;
+        /**
+         * The index of the intersected primitive in the geometry, -1 if the geometry is a single primitive
+         */
+        private int primitive = -1;
+        /**
+         * The cached point, normal and material of the hit
+         */
+        private Point point = null;
+        private Vector normal = null;
+        private Material material = null;
+        /**
+         * The instance the hit is in and the hit in the space of its geometries, null for a direct hit
+         */
+        private Instance instance = null;
+        private Hit local = null;
+
+        /**
+         * Creates a record for the closest hit along a ray.
+         *
+         * @param ray         the ray
+         * @param maxDistance the maximal distance (excluded) of a hit from the head of the ray
+         */
+        public Hit(Ray ray, double maxDistance) {
+            this.ray = ray;
+            this.distance = maxDistance;
+        }
+
+        /**
+         * Records an intersection if it is nearer than the current hit.
+         *
+         * @param geometry the intersected geometry
+         * @param distance the distance of the intersection from the head of the ray
+         * @return true if the intersection was recorded
+         */
+        public boolean update(Geometry geometry, double distance) {
+            return update(geometry, -1, distance);
+        }
+
+        /**
+         * Records an intersection with a primitive of a composite geometry if it is nearer than the current hit.
+         *
+         * @param geometry  the intersected geometry
+         * @param primitive the index of the intersected primitive in the geometry
+         * @param distance  the distance of the intersection from the head of the ray
+         * @return true if the intersection was recorded
+         */
+        public boolean update(Geometry geometry, int primitive, double distance) {
+            if (!(distance < this.distance)) return false;
+            this.distance = distance;
+            this.geometry = geometry;
+            this.primitive = primitive;
+            point = null;
+            normal = null;
+            material = null;
+            instance = null;
+            local = null;
+            return true;
+        }
+
+        /**
+         * Records a hit inside an instance if it is nearer than the current hit.
+         *
+         * @param instance the instance
+         * @param local    the hit in the space of the geometries of the instance
+         * @param distance the distance of the hit from the head of the ray
+         * @return true if the hit was recorded
+         */
+        boolean update(Instance instance, Hit local, double distance) {
+            if (!update(local.geometry, local.primitive, distance)) return false;
+            this.instance = instance;
+            this.local = local;
+            return true;
+        }
+
+        /**
+         * Returns the distance of the hit from the head of the ray,
+         * or the maximal distance if no hit was found.
+         *
+         * @return the distance of the hit
+         */
+        public double getDistance() {
+            return distance;
+        }
+
+        /**
+         * Returns the intersected geometry.
+         *
+         * @return the geometry, or null if no hit was found
+         */
+        public Geometry getGeometry() {
+            return geometry;
+        }
+
+        /**
+         * Returns the index of the intersected primitive in the geometry.
+         *
+         * @return the index of the primitive, -1 if the geometry is a single primitive
+         */
+        public int getPrimitive() {
+            return primitive;
+        }
+
+        /**
+         * Returns the ray the hit is on.
+         *
+         * @return the ray
+         */
+        public Ray getRay() {
+            return ray;
+        }
+
+        /**
+         * Returns the hit point, computed on the first call.
+         *
+         * @return the hit point
+         */
+        public Point getPoint() {
+            if (point == null) point = ray.getPoint(distance);
+            return point;
+        }
+
+        /**
+         * Returns the normal of the geometry at the hit point, computed on the first call.
+         *
+         * @return the normal
+         */
+        public Vector getNormal() {
+            if (normal == null)
+                normal = local == null ? geometry.getNormal(getPoint(), primitive)
+                        : instance.normalToWorld(local.getNormal());
+            return normal;
+        }
+
+        /**
+         * Returns the material of the geometry at the hit point.
+         *
+         * @return the material
+         */
+        public Material getMaterial() {
+            if (material == null) material = geometry.getMaterial();
+            return material;
+        }
+
+        /**
+         * Converts the hit to a {@link GeoPoint} on the intersected primitive.
+         * A hit inside an instance is on the primitive as the instance places it in world space.
+         *
+         * @return the point on the geometry
+         */
+        public GeoPoint getGeoPoint() {
+            return new GeoPoint(getPrimitiveGeometry(), getPoint());
+        }
+
+        /**
+         * Returns the intersected primitive as a geometry of its own, placed in the space of the ray.
+         *
+         * @return the primitive
+         */
+        private Geometry getPrimitiveGeometry() {
+            return local == null ? geometry.getPrimitive(primitive) : instance.place(local.getPrimitiveGeometry());
+        }
+
+        @Override
+        public String toString() {
+            return "Hit{" + geometry + "#" + primitive + " at " + distance + "}";
+        }
+    }
+
     public List<GeoPoint> findGeoIntersections(Ray ray) {
         return findGeoIntersectionsHelper(ray);
 
@@ -65,4 +266,186 @@ public abstract class Intersectable {
 
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray);
 
+    /**
+     * Finds the closest intersection of the ray with the geometry.
+     *
+     * @param ray the ray to intersect with
+     * @return the closest intersection point, or null if there is none
+     */
+    public GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest intersection of the ray with the geometry that is nearer than a maximal distance.
+     *
+     * @param ray         the ray to intersect with
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @return the closest intersection point, or null if there is none nearer than maxDistance
+     */
+    public GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        Hit hit = findClosestHit(ray, maxDistance);
+        return hit == null ? null : hit.getGeoPoint();
+    }
+
+    /**
+     * Finds the closest hit of the ray with the geometry.
+     *
+     * @param ray the ray to intersect with
+     * @return the closest hit, or null if there is none
+     */
+    public Hit findClosestHit(Ray ray) {
+        return findClosestHit(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest hit of the ray with the geometry that is nearer than a maximal distance.
+     * Composite geometries shrink the maximal distance whenever a hit is found,
+     * so the farther geometries are rejected early.
+     *
+     * @param ray         the ray to intersect with
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @return the closest hit, or null if there is none nearer than maxDistance
+     */
+    public Hit findClosestHit(Ray ray, double maxDistance) {
+        Hit hit = new Hit(ray, maxDistance);
+        return findClosestHitHelper(ray, hit) ? hit : null;
+    }
+
+    /**
+     * Records the closest intersection with the geometry if it is nearer than the current hit.
+     * The default implementation picks it from all the intersections,
+     * geometries override it to compute just the distance of the closest one.
+     *
+     * @param ray the ray to intersect with
+     * @param hit the closest hit so far
+     * @return true if the hit was updated
+     */
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        List<GeoPoint> points = findGeoIntersectionsHelper(ray);
+        if (points == null) return false;
+        Point p0 = ray.getP0();
+        GeoPoint closest = null;
+        for (GeoPoint gp : points) {
+            if (hit.update(gp.geometry, gp.point.distance(p0))) closest = gp;
+        }
+        if (closest == null) return false;
+        hit.point = closest.point;
+        return true;
+    }
+
+    /**
+     * Finds the closest hits of all the rays of a packet with the geometry.
+     * The hits are kept in the packet, see {@link RayPacket#getHit(int)}.
+     *
+     * @param packet the rays
+     */
+    public void findClosestHits(RayPacket packet) {
+        findClosestHitsHelper(packet);
+    }
+
+    /**
+     * Records the closest intersections of the rays of a packet with the geometry.
+     * The default implementation intersects the rays one by one,
+     * an acceleration structure overrides it to traverse its nodes with all the rays together.
+     *
+     * @param packet the rays and their closest hits so far
+     */
+    protected void findClosestHitsHelper(RayPacket packet) {
+        for (int i = 0; i < packet.size(); i++)
+            findClosestHitHelper(packet.getRay(i), packet.hit(i));
+    }
+
+    /**
+     * Finds the closest hits of all the rays of a stream with the geometry, nearer than their maximal
+     * distances. The hits are kept in the stream, see {@link RayStream#getHit(int)}.
+     *
+     * @param rays the rays
+     */
+    public void findClosestHits(RayStream rays) {
+        findClosestHitsHelper(rays);
+    }
+
+    /**
+     * Records the closest intersections of the rays of a stream with the geometry.
+     * The default implementation intersects the rays one by one through {@link #findClosestHitHelper},
+     * simple geometries override it with a loop over the arrays of the stream.
+     *
+     * @param rays the rays and their closest hits so far
+     */
+    protected void findClosestHitsHelper(RayStream rays) {
+        for (int i = 0, n = rays.size(); i < n; i++)
+            rays.findClosestHit(i, this);
+    }
+
+    /**
+     * Returns the axis-aligned box that bounds the intersectable object,
+     * used by the acceleration structures to cull rays.
+     *
+     * @return the bounding box, or null if the object is not bounded
+     */
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
+    /**
+     * Registers a collection that the object was added to, to be notified when the bounds of the object change.
+     *
+     * @param parent the collection
+     */
+    void addParent(Geometries parent) {
+        if (parents == null) parents = List.of(parent);//most objects are in a single collection
+        else {
+            List<Geometries> more = new ArrayList<>(parents);
+            more.add(parent);
+            parents = more;
+        }
+    }
+
+    /**
+     * Notifies the collections that contain the object that its bounding box changed,
+     * so they drop the boxes they cached around it. A geometry that moves calls it after it moved.
+     */
+    protected void boundsChanged() {
+        if (parents != null)
+            for (Geometries parent : parents) parent.invalidateBounds();
+    }
+
+    /**
+     * Computes the transparency along a shadow ray - the product of the transparency coefficients (kT)
+     * of all the intersections nearer than maxDistance.
+     * The computation stops at the first opaque geometry, or as soon as the transparency drops below minK.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray, e.g. the distance to the light
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the transparency along the ray (lower than minK if the ray is blocked)
+     */
+    public Double3 findTransparency(Ray ray, double maxDistance, double minK) {
+        return findTransparencyHelper(ray, maxDistance, Double3.ONE, minK);
+    }
+
+    /**
+     * Multiplies the accumulated transparency by the transparency of the intersections nearer than maxDistance.
+     * The default implementation goes over all the intersections,
+     * geometries override it to avoid creating the intersection points.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the accumulated transparency
+     */
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        List<GeoPoint> points = findGeoIntersectionsHelper(ray);
+        if (points == null) return ktr;
+        Point p0 = ray.getP0();
+        for (GeoPoint gp : points) {
+            if (gp.point.distance(p0) < maxDistance) {
+                ktr = ktr.product(gp.geometry.getMaterial().kT);
+                if (ktr.lowerThan(minK)) return ktr;
+            }
+        }
+        return ktr;
+    }
 }
@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Ray;
 import primitives.Vector;
 import primitives.Point;
@@ -10,8 +11,8 @@ import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 public class Plane extends Geometry {
-    Point q0;//Reference point of the plane
-    Vector normal;//The normal to the plane
+    final Point q0;//Reference point of the plane
+    final Vector normal;//The normal to the plane
 
     //constructor that create a plane from point and vector
     public Plane(Point q0, Vector normal) {
@@ -32,11 +33,31 @@ public class Plane extends Geometry {
         return normal;
     }
 
+    /**
+     * Returns the plane moved by an offset, with the same normal. The plane itself does not change.
+     *
+     * @param offset the offset to move the plane by
+     * @return the moved plane
+     */
+    Plane translated(Vector offset) {
+        return new Plane(q0.add(offset), normal);
+    }
+
     @Override
     public Vector getNormal(Point point) {
         return normal;
     }
 
+    /**
+     * An infinite plane has no bounding box.
+     *
+     * @return null, since the plane is unbounded
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
     /**
      * Computes the intersection point(s) between the current plane and a given ray.
      *
@@ -65,4 +86,61 @@ public class Plane extends Geometry {
         }
         return null;
     }
+
+    /**
+     * Computes the distance of the intersection of the ray with the plane.
+     *
+     * @param ray the ray to intersect with the plane
+     * @return the distance of the intersection, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    private double intersect(Ray ray) {
+        Point p0 = ray.getP0();
+        // the vector from the head of the ray to q0, kept in doubles so no vector is allocated
+        double ux = q0.getX() - p0.getX(), uy = q0.getY() - p0.getY(), uz = q0.getZ() - p0.getZ();
+        if (isZero(ux) && isZero(uy) && isZero(uz)) {//start in the plane
+            return Double.POSITIVE_INFINITY;
+        }
+        double denominator = this.normal.dotProduct(ray.getDir());
+        if (isZero(denominator)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double t = alignZero((normal.getX() * ux + normal.getY() * uy + normal.getZ() * uz) / denominator);
+        return t > 0 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        return hit.update(this, intersect(ray));
+    }
+
+    /**
+     * Finds the closest intersections of a stream of rays with the plane, in one loop over the rays.
+     *
+     * @param rays the rays and their closest hits so far
+     */
+    @Override
+    protected void findClosestHitsHelper(RayStream rays) {
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+        double qx = q0.getX(), qy = q0.getY(), qz = q0.getZ();
+        for (int i = 0, n = rays.size(); i < n; i++) {
+            double denominator = nx * rays.dx[i] + ny * rays.dy[i] + nz * rays.dz[i];
+            if (isZero(denominator)) continue;//the ray is parallel to the plane
+            double t = alignZero((nx * (qx - rays.ox[i]) + ny * (qy - rays.oy[i]) + nz * (qz - rays.oz[i])) / denominator);
+            if (t > 0) rays.update(i, this, -1, t);
+        }
+    }
+
+    /**
+     * Multiplies the transparency by the plane's kT if the ray crosses it nearer than maxDistance.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the accumulated transparency
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        return intersect(ray) < maxDistance ? ktr.product(getMaterial().kT) : ktr;
+    }
 }
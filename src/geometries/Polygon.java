@@ -1,11 +1,14 @@
 package geometries;
 
+import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 import java.lang.reflect.Array;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -18,15 +21,45 @@ import primitives.Vector;
  */
 public class Polygon extends Geometry {
     /**
-     * List of polygon's vertices
+     * List of polygon's vertices (an unmodifiable view of {@link #points})
      */
     protected final List<Point> vertices;
     /**
-     * Associated plane in which the polygon lays
+     * The vertices of the polygon, replaced in place when the polygon moves
      */
-    protected final Plane plane;
+    private final Point[] points;
+    /**
+     * Associated plane in which the polygon lays, replaced when the polygon moves
+     */
+    protected Plane plane;
     private final int size;
 
+    /**
+     * The equation of the plane of the polygon: nx*x + ny*y + nz*z = d
+     */
+    private final double nx, ny, nz;
+    private double d;
+    /**
+     * The axis (0 for x, 1 for y, 2 for z) along which the normal is the longest.
+     * The polygon is projected onto the plane of the two other axes for the inside test.
+     */
+    private final int dominantAxis;
+    /**
+     * The lines of the projected edges: edgeA[i]*u + edgeB[i]*v + edgeC[i] is the distance
+     * of a projected point (u, v) from the i-th edge, positive inside the polygon
+     */
+    private final double[] edgeA, edgeB, edgeC;
+    /**
+     * Whether the polygon is a parallelogram (like a rectangular wall or floor),
+     * which has a faster inside test
+     */
+    private final boolean parallelogram;
+    /**
+     * For a parallelogram - the vectors that give the coordinates of a point in the plane
+     * along the two edges from the first vertex: alpha = alpha . (p - v0), beta = beta . (p - v0)
+     */
+    private final double alphaX, alphaY, alphaZ, betaX, betaY, betaZ;
+
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
      * path. The polygon must be convex.
@@ -52,15 +85,68 @@ public class Polygon extends Geometry {
     public Polygon(Point... vertices) {
         if (vertices.length < 3)
             throw new IllegalArgumentException("A polygon can't have less than 3 vertices");
-        this.vertices = List.of(vertices);
+        points = vertices.clone();
+        this.vertices = Collections.unmodifiableList(Arrays.asList(points));
         size = vertices.length;
 
         // Generate the plane according to the first three vertices and associate the
         // polygon with this plane.
         // The plane holds the invariant normal (orthogonal unit) vector to the polygon
         plane = new Plane(vertices[0], vertices[1], vertices[2]);
-        if (size == 3) return; // no need for more tests for a Triangle
+        if (size > 3) validate(vertices);
+
+        Vector normal = plane.getNormal();
+        nx = normal.getX();
+        ny = normal.getY();
+        nz = normal.getZ();
+        d = nx * vertices[0].getX() + ny * vertices[0].getY() + nz * vertices[0].getZ();
+
+        // the inside test projects the polygon onto the plane of the two axes it is the widest along
+        double ax = Math.abs(nx), ay = Math.abs(ny), az = Math.abs(nz);
+        dominantAxis = ax >= ay && ax >= az ? 0 : ay >= az ? 1 : 2;
+        // the projection keeps the cyclic order of the axes, so the sign of the normal along
+        // the dropped axis gives the orientation of the projected vertices
+        double orientation = (dominantAxis == 0 ? nx : dominantAxis == 1 ? ny : nz) > 0 ? 1 : -1;
+        edgeA = new double[size];
+        edgeB = new double[size];
+        edgeC = new double[size];
+        for (int i = 0; i < size; ++i) {
+            Point from = vertices[i], to = vertices[(i + 1) % size];
+            double fu = projectU(from), fv = projectV(from);
+            double eu = projectU(to) - fu, ev = projectV(to) - fv;
+            double scale = orientation / Math.sqrt(eu * eu + ev * ev);
+            edgeA[i] = -ev * scale;
+            edgeB[i] = eu * scale;
+            edgeC[i] = (ev * fu - eu * fv) * scale;
+        }
 
+        parallelogram = size == 4
+                && vertices[0].add(vertices[2].subtract(vertices[1])).equals(vertices[3]);
+        if (parallelogram) {
+            Vector edge1 = vertices[1].subtract(vertices[0]);
+            Vector edge2 = vertices[3].subtract(vertices[0]);
+            Vector alpha = edge2.crossProduct(normal);
+            alpha = alpha.scale(1 / alpha.dotProduct(edge1));
+            Vector beta = normal.crossProduct(edge1);
+            beta = beta.scale(1 / beta.dotProduct(edge2));
+            alphaX = alpha.getX();
+            alphaY = alpha.getY();
+            alphaZ = alpha.getZ();
+            betaX = beta.getX();
+            betaY = beta.getY();
+            betaZ = beta.getZ();
+        } else {
+            alphaX = alphaY = alphaZ = betaX = betaY = betaZ = 0;
+        }
+    }
+
+    /**
+     * Validates that the vertices (more than 3) are in the same plane and make a convex polygon
+     *
+     * @param vertices the vertices of the polygon
+     * @throws IllegalArgumentException if the vertices do not make a convex polygon
+     */
+    private void validate(Point[] vertices) {
         Vector n = plane.getNormal();
         // Subtracting any subsequent points will throw an IllegalArgumentException
         // because of Zero Vector if they are in the same point
@@ -89,11 +175,60 @@ public class Polygon extends Geometry {
         }
     }
 
+    /**
+     * Returns the first coordinate of the projection of a point onto the plane of the polygon's inside test
+     */
+    private double projectU(Point p) {
+        return dominantAxis == 0 ? p.getY() : dominantAxis == 1 ? p.getZ() : p.getX();
+    }
+
+    /**
+     * Returns the second coordinate of the projection of a point onto the plane of the polygon's inside test
+     */
+    private double projectV(Point p) {
+        return dominantAxis == 0 ? p.getZ() : dominantAxis == 1 ? p.getX() : p.getY();
+    }
+
+    /**
+     * Moves the polygon by an offset, keeping its shape and orientation.
+     * The collections that contain the polygon recompute their boxes, but a hierarchy or a grid
+     * that contains it must be refitted afterwards, see {@link Geometries#refitBVH} and {@link Geometries#buildGrid}.
+     *
+     * @param offset the offset to move the polygon by
+     * @return the polygon itself
+     */
+    public Polygon translate(Vector offset) {
+        for (int i = 0; i < size; ++i) points[i] = points[i].add(offset);
+        plane = plane.translated(offset);
+        d += nx * offset.getX() + ny * offset.getY() + nz * offset.getZ();
+        // the edge lines keep their directions, only their distances from the origin change
+        double du = dominantAxis == 0 ? offset.getY() : dominantAxis == 1 ? offset.getZ() : offset.getX();
+        double dv = dominantAxis == 0 ? offset.getZ() : dominantAxis == 1 ? offset.getX() : offset.getY();
+        for (int i = 0; i < size; ++i)
+            edgeC[i] -= edgeA[i] * du + edgeB[i] * dv;
+        boundsChanged();
+        return this;
+    }
+
+    /**
+     * Returns the vertices of the polygon, in their order along its edges.
+     *
+     * @return the (unmodifiable) list of the vertices
+     */
+    public List<Point> getVertices() {
+        return vertices;
+    }
+
     @Override
     public Vector getNormal(Point point) {
         return plane.getNormal(point);
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(points);
+    }
+
     /**
      Computes the intersection point(s) between the current polygon and a given ray.
      @param ray the ray to intersect with the polygon
@@ -102,34 +237,77 @@ public class Polygon extends Geometry {
      */
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        double t = intersect(ray);
+        return t == Double.POSITIVE_INFINITY ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+    }
 
-        if (plane.findIntersections(ray) == null) {//at first find if thar is intersection with the plane of the triangle
-            return null;
-        }
-        //calculate according to the calculation in the course's book
-        Point p = plane.findIntersections(ray).get(0);//intersection point
-        ArrayList<Vector> vectors = new ArrayList<>();
-        ArrayList<Vector> normals = new ArrayList<>();
+    /**
+     * Computes the distance of the intersection of the ray with the polygon.
+     *
+     * @param ray the ray to intersect with the polygon
+     * @return the distance of the intersection, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    protected double intersect(Ray ray) {
         Point p0 = ray.getP0();
         Vector dir = ray.getDir();
-
-        for (Point ver : vertices) {//calculate vectors from p0 to all the vertices of the polygon
-            vectors.add(ver.subtract(p0));
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        //at first find the intersection with the plane of the polygon
+        double denominator = nx * dx + ny * dy + nz * dz;
+        if (isZero(denominator)) {
+            return Double.POSITIVE_INFINITY;
         }
-
-        for (int j = 0; j < vectors.size() - 1; j++) {//calculate normals
-                normals.add(vectors.get(j).crossProduct(vectors.get(j+1)).normalize());
+        double t = alignZero((d - nx * ox - ny * oy - nz * oz) / denominator);
+        if (t <= 0 || !isInside(ox + t * dx, oy + t * dy, oz + t * dz)) {
+            return Double.POSITIVE_INFINITY;
         }
+        return t;
+    }
+
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        return hit.update(this, intersect(ray));
+    }
+
+    /**
+     * Multiplies the transparency by the polygon's kT if the ray crosses it nearer than maxDistance.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the accumulated transparency
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        return intersect(ray) < maxDistance ? ktr.product(getMaterial().kT) : ktr;
+    }
 
-        normals.add(vectors.get(vectors.size()-1).crossProduct(vectors.get(0)).normalize());
-        double[] numbers = new double[normals.size()];
-        double a = dir.dotProduct(normals.get(0));
-        double b = 0;
-        for (int j = 1; j < normals.size(); j++) {//checks if all the normals have the same sign
-            b = dir.dotProduct(normals.get(j));
-            if (a * b <= 0)
-                return null;
+    /**
+     * Checks whether a point in the plane of the polygon is inside the polygon (not on its edges)
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @return true if the point is inside the polygon
+     */
+    private boolean isInside(double x, double y, double z) {
+        if (parallelogram) {
+            Point v0 = vertices.get(0);
+            x -= v0.getX();
+            y -= v0.getY();
+            z -= v0.getZ();
+            double alpha = alignZero(alphaX * x + alphaY * y + alphaZ * z);
+            if (alpha <= 0 || alignZero(alpha - 1) >= 0) return false;
+            double beta = alignZero(betaX * x + betaY * y + betaZ * z);
+            return beta > 0 && alignZero(beta - 1) < 0;
+        }
+        double u = dominantAxis == 0 ? y : dominantAxis == 1 ? z : x;
+        double v = dominantAxis == 0 ? z : dominantAxis == 1 ? x : y;
+        for (int i = 0; i < size; ++i) {
+            if (alignZero(edgeA[i] * u + edgeB[i] * v + edgeC[i]) <= 0)
+                return false;
         }
-        return List.of(new GeoPoint(this,p));
+        return true;
     }
 }
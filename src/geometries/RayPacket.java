@@ -0,0 +1,154 @@
+package geometries;
+
+import geometries.Intersectable.Hit;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * A packet of coherent rays - like the primary rays of a tile of adjacent pixels - that traverse
+ * the bounding volume hierarchy together, see {@link Intersectable#findClosestHits(RayPacket)}.
+ * Each ray of the packet keeps its own closest {@link Hit}.
+ * The packet keeps the intervals of the origins and of the inverse directions of its rays, so a node
+ * can be culled for all the rays at once by interval arithmetic. This is possible only when the
+ * directions of all the rays have the same signs along each axis (the packet is coherent),
+ * otherwise the rays traverse one by one.
+ */
+public class RayPacket {
+    /**
+     * The rays of the packet and their closest hits
+     */
+    private final Ray[] rays;
+    private final Hit[] hits;
+    /**
+     * The origins and the inverse directions of the rays, coordinate by coordinate
+     */
+    final double[] ox, oy, oz, invDx, invDy, invDz;
+    /**
+     * The intervals of the origins and of the inverse directions of the rays - minimum and maximum
+     * of x, y and z (valid only for a coherent packet)
+     */
+    private final double[] origins = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    private final double[] inverses = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    /**
+     * Whether the directions of all the rays have the same (non zero) signs along each axis
+     */
+    private final boolean coherent;
+
+    /**
+     * Creates a packet of rays, each with no hit yet.
+     *
+     * @param rays the rays of the packet
+     * @throws IllegalArgumentException if there are no rays
+     */
+    public RayPacket(Ray... rays) {
+        if (rays.length == 0) throw new IllegalArgumentException("A packet must have rays");
+        int n = rays.length;
+        this.rays = rays;
+        hits = new Hit[n];
+        ox = new double[n];
+        oy = new double[n];
+        oz = new double[n];
+        invDx = new double[n];
+        invDy = new double[n];
+        invDz = new double[n];
+        int[] signs = new int[3];
+        boolean coherent = true;
+        for (int i = 0; i < n; i++) {
+            hits[i] = new Hit(rays[i], Double.POSITIVE_INFINITY);
+            Point p0 = rays[i].getP0();
+            Vector dir = rays[i].getDir();
+            double[] origin = {ox[i] = p0.getX(), oy[i] = p0.getY(), oz[i] = p0.getZ()};
+            double[] inverse = {invDx[i] = 1 / dir.getX(), invDy[i] = 1 / dir.getY(), invDz[i] = 1 / dir.getZ()};
+            for (int axis = 0; axis < 3; axis++) {
+                int sign = (int) Math.signum(inverse[axis]);
+                //a zero direction has an infinite inverse, which the interval arithmetic cannot take
+                if (Double.isInfinite(inverse[axis]) || (i > 0 && sign != signs[axis])) coherent = false;
+                signs[axis] = sign;
+                origins[axis] = Math.min(origins[axis], origin[axis]);
+                origins[axis + 3] = Math.max(origins[axis + 3], origin[axis]);
+                inverses[axis] = Math.min(inverses[axis], inverse[axis]);
+                inverses[axis + 3] = Math.max(inverses[axis + 3], inverse[axis]);
+            }
+        }
+        this.coherent = coherent;
+    }
+
+    /**
+     * Returns the number of rays in the packet.
+     *
+     * @return the number of rays
+     */
+    public int size() {
+        return rays.length;
+    }
+
+    /**
+     * Returns a ray of the packet.
+     *
+     * @param index the index of the ray
+     * @return the ray
+     */
+    public Ray getRay(int index) {
+        return rays[index];
+    }
+
+    /**
+     * Returns the closest hit of a ray of the packet.
+     *
+     * @param index the index of the ray
+     * @return the closest hit, or null if the ray hit nothing
+     */
+    public Hit getHit(int index) {
+        return hits[index].getGeometry() == null ? null : hits[index];
+    }
+
+    /**
+     * Returns the record of the closest hit of a ray, to be updated during the traversal.
+     *
+     * @param index the index of the ray
+     * @return the hit record (its geometry is null while nothing was hit)
+     */
+    Hit hit(int index) {
+        return hits[index];
+    }
+
+    /**
+     * Returns whether the rays of the packet may be culled together.
+     *
+     * @return true if the directions of all the rays have the same signs along each axis
+     */
+    boolean isCoherent() {
+        return coherent;
+    }
+
+    /**
+     * Tests whether all the rays of a coherent packet miss the box of a node, by interval arithmetic:
+     * the earliest distance any ray may enter the box is compared with the latest distance any ray may leave it.
+     * The test is conservative - it may fail to cull a box that all the rays miss, but never culls a box
+     * that one of the rays hits.
+     *
+     * @param bounds the boxes of the nodes (see {@link FlatNodes})
+     * @param node   the index of the node
+     * @return true if none of the rays may hit the box
+     */
+    boolean misses(float[] bounds, int node) {
+        int b = 6 * node;
+        double tNear = 0, tFar = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            double iMin = inverses[axis], iMax = inverses[axis + 3];
+            // the near side of the slab is the minimum for a positive direction and the maximum for a negative one
+            double near = iMin > 0 ? bounds[b + axis] : bounds[b + axis + 3];
+            double far = iMin > 0 ? bounds[b + axis + 3] : bounds[b + axis];
+            double nearMin = near - origins[axis + 3], nearMax = near - origins[axis];
+            double farMin = far - origins[axis + 3], farMax = far - origins[axis];
+            double enter = Math.min(Math.min(nearMin * iMin, nearMin * iMax), Math.min(nearMax * iMin, nearMax * iMax));
+            double leave = Math.max(Math.max(farMin * iMin, farMin * iMax), Math.max(farMax * iMin, farMax * iMax));
+            if (enter > tNear) tNear = enter;
+            if (leave < tFar) tFar = leave;
+        }
+        return tNear > tFar;
+    }
+}
@@ -0,0 +1,188 @@
+package geometries;
+
+import geometries.Intersectable.Hit;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+
+/**
+ * A stream of rays kept as a structure of arrays - the origins, the directions and the maximal
+ * distances of the rays - and a parallel buffer of their closest hits, see
+ * {@link Intersectable#findClosestHits(RayStream)}.
+ * A geometry intersects the whole stream in one loop over the arrays, so the loop calls a single
+ * implementation and creates no objects, and a shading stage can submit thousands of rays at once.
+ * The maximal distance of a ray shrinks to the distance of its closest hit as hits are found.
+ */
+public class RayStream {
+    /**
+     * The origins and the (normalized) directions of the rays, coordinate by coordinate
+     */
+    double[] ox, oy, oz, dx, dy, dz;
+    /**
+     * The maximal distance (excluded) of each ray - the distance of its closest hit once one was found
+     */
+    double[] tMax;
+    /**
+     * The hit geometry of each ray (null while nothing was hit) and the index of the hit primitive in it
+     */
+    Geometry[] geometries;
+    int[] primitives;
+    /**
+     * The full hit records of the rays that were hit through a single ray query (e.g. inside an
+     * {@link Instance}, whose hits keep their local hit), null for the hits found by a stream loop
+     */
+    private Hit[] hits;
+    /**
+     * The number of rays in the stream
+     */
+    private int size = 0;
+
+    /**
+     * Creates an empty stream.
+     *
+     * @param capacity the number of rays the stream holds before it grows
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public RayStream(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity must be positive");
+        ox = new double[capacity];
+        oy = new double[capacity];
+        oz = new double[capacity];
+        dx = new double[capacity];
+        dy = new double[capacity];
+        dz = new double[capacity];
+        tMax = new double[capacity];
+        geometries = new Geometry[capacity];
+        primitives = new int[capacity];
+        hits = new Hit[capacity];
+    }
+
+    /**
+     * Adds a ray to the stream.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance (excluded) of a hit from the head of the ray
+     * @return the index of the ray in the stream
+     */
+    public int add(Ray ray, double maxDistance) {
+        if (size == tMax.length) grow();
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        ox[size] = p0.getX();
+        oy[size] = p0.getY();
+        oz[size] = p0.getZ();
+        dx[size] = dir.getX();
+        dy[size] = dir.getY();
+        dz[size] = dir.getZ();
+        tMax[size] = maxDistance;
+        geometries[size] = null;
+        primitives[size] = -1;
+        hits[size] = null;
+        return size++;
+    }
+
+    /**
+     * Doubles the capacity of the stream
+     */
+    private void grow() {
+        int capacity = 2 * tMax.length;
+        ox = Arrays.copyOf(ox, capacity);
+        oy = Arrays.copyOf(oy, capacity);
+        oz = Arrays.copyOf(oz, capacity);
+        dx = Arrays.copyOf(dx, capacity);
+        dy = Arrays.copyOf(dy, capacity);
+        dz = Arrays.copyOf(dz, capacity);
+        tMax = Arrays.copyOf(tMax, capacity);
+        geometries = Arrays.copyOf(geometries, capacity);
+        primitives = Arrays.copyOf(primitives, capacity);
+        hits = Arrays.copyOf(hits, capacity);
+    }
+
+    /**
+     * Removes all the rays, keeping the buffers for the next batch.
+     */
+    public void clear() {
+        Arrays.fill(geometries, 0, size, null);
+        Arrays.fill(hits, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of rays in the stream.
+     *
+     * @return the number of rays
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a ray of the stream as a ray object.
+     *
+     * @param index the index of the ray
+     * @return the ray
+     */
+    public Ray getRay(int index) {
+        return new Ray(new Point(ox[index], oy[index], oz[index]), new Vector(dx[index], dy[index], dz[index]));
+    }
+
+    /**
+     * Returns the distance of the closest hit of a ray.
+     *
+     * @param index the index of the ray
+     * @return the distance of the hit, or the maximal distance of the ray if nothing was hit
+     */
+    public double getDistance(int index) {
+        return tMax[index];
+    }
+
+    /**
+     * Returns the closest hit of a ray, to compute its point, normal and material.
+     *
+     * @param index the index of the ray
+     * @return the hit, or null if the ray hit nothing
+     */
+    public Hit getHit(int index) {
+        if (geometries[index] == null) return null;
+        if (hits[index] == null) {
+            hits[index] = new Hit(getRay(index), Double.POSITIVE_INFINITY);
+            hits[index].update(geometries[index], primitives[index], tMax[index]);
+        }
+        return hits[index];
+    }
+
+    /**
+     * Records a hit found by a stream loop if it is nearer than the closest hit of the ray.
+     *
+     * @param index     the index of the ray
+     * @param geometry  the hit geometry
+     * @param primitive the index of the hit primitive in the geometry, -1 for a single primitive
+     * @param distance  the distance of the hit
+     */
+    void update(int index, Geometry geometry, int primitive, double distance) {
+        if (!(distance < tMax[index])) return;
+        tMax[index] = distance;
+        geometries[index] = geometry;
+        primitives[index] = primitive;
+        hits[index] = null;
+    }
+
+    /**
+     * Finds the closest hit of a ray of the stream through the single ray query of a geometry,
+     * for the geometries that have no stream loop of their own.
+     *
+     * @param index    the index of the ray
+     * @param geometry the geometry to intersect
+     */
+    void findClosestHit(int index, Intersectable geometry) {
+        Ray ray = getRay(index);
+        Hit hit = new Hit(ray, tMax[index]);
+        if (!geometry.findClosestHitHelper(ray, hit)) return;
+        tMax[index] = hit.getDistance();
+        geometries[index] = hit.getGeometry();
+        primitives[index] = hit.getPrimitive();
+        hits[index] = hit;
+    }
+}
@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -26,6 +27,26 @@ public class Sphere extends RadialGeometry {
         return center;
     }
 
+    /**
+     * Moves the sphere to a new center.
+     * The collections that contain the sphere recompute their boxes, but a hierarchy or a grid
+     * that contains it must be refitted afterwards, see {@link Geometries#refitBVH} and {@link Geometries#buildGrid}.
+     *
+     * @param center the new center point of the sphere
+     * @return the sphere itself
+     */
+    public Sphere setCenter(Point center) {
+        this.center = center;
+        boundsChanged();
+        return this;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
+
 
     /**
      * Computes the intersection point(s) between the current sphere and a given ray.
@@ -64,4 +85,90 @@ public class Sphere extends RadialGeometry {
         }
         return List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
     }
+
+    /**
+     * Computes just the distance of the closest intersection of the ray with the sphere,
+     * without creating the intersection point.
+     *
+     * @param ray the ray to intersect with the sphere
+     * @param hit the closest hit so far
+     * @return true if the hit was updated
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        // the vector from the head of the ray to the center, kept in doubles so no vector is allocated
+        double ux = center.getX() - p0.getX(), uy = center.getY() - p0.getY(), uz = center.getZ() - p0.getZ();
+        if (Util.isZero(ux) && Util.isZero(uy) && Util.isZero(uz)) {//ray stars at the center
+            return hit.update(this, radius);
+        }
+        double tm = dir.getX() * ux + dir.getY() * uy + dir.getZ() * uz;
+        double d = Util.alignZero(Math.sqrt(ux * ux + uy * uy + uz * uz - (tm * tm)));
+        if (d >= radius) {//ray does not intersect
+            return false;
+        }
+        double th = Math.sqrt((radius * radius) - (d * d));
+        double t = Util.alignZero(tm - th);//the nearer point
+        if (t <= 0) {//the ray starts inside the sphere (or after it) - take the farther point
+            t = Util.alignZero(tm + th);
+        }
+        return t > 0 && hit.update(this, t);
+    }
+
+    /**
+     * Finds the closest intersections of a stream of rays with the sphere, in one loop over the rays.
+     *
+     * @param rays the rays and their closest hits so far
+     */
+    @Override
+    protected void findClosestHitsHelper(RayStream rays) {
+        double cx = center.getX(), cy = center.getY(), cz = center.getZ();
+        for (int i = 0, n = rays.size(); i < n; i++) {
+            double ux = cx - rays.ox[i], uy = cy - rays.oy[i], uz = cz - rays.oz[i];
+            double tm = ux * rays.dx[i] + uy * rays.dy[i] + uz * rays.dz[i];
+            double d = Util.alignZero(Math.sqrt(ux * ux + uy * uy + uz * uz - tm * tm));
+            if (d >= radius) continue;//the ray does not intersect
+            double th = Math.sqrt(radius * radius - d * d);
+            double t = Util.alignZero(tm - th);//the nearer point
+            if (t <= 0) t = Util.alignZero(tm + th);
+            if (t > 0) rays.update(i, this, -1, t);
+        }
+    }
+
+    /**
+     * Multiplies the transparency by the sphere's kT for each intersection nearer than maxDistance,
+     * without creating the intersection points.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the accumulated transparency
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ux = center.getX() - p0.getX(), uy = center.getY() - p0.getY(), uz = center.getZ() - p0.getZ();
+        int count;
+        if (Util.isZero(ux) && Util.isZero(uy) && Util.isZero(uz)) {//ray stars at the center
+            count = radius < maxDistance ? 1 : 0;
+        } else {
+            double tm = dir.getX() * ux + dir.getY() * uy + dir.getZ() * uz;
+            double d = Util.alignZero(Math.sqrt(ux * ux + uy * uy + uz * uz - (tm * tm)));
+            if (d >= radius) {//ray does not intersect
+                return ktr;
+            }
+            double th = Math.sqrt((radius * radius) - (d * d));
+            double t1 = Util.alignZero(tm + th);
+            double t2 = Util.alignZero(tm - th);
+            count = (t1 > 0 && t1 < maxDistance ? 1 : 0) + (t2 > 0 && t2 < maxDistance ? 1 : 0);
+        }
+        Double3 kT = getMaterial().kT;
+        for (int i = 0; i < count && !ktr.lowerThan(minK); i++) {
+            ktr = ktr.product(kT);
+        }
+        return ktr;
+    }
 }
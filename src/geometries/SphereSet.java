@@ -0,0 +1,468 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of spheres that share one material and emission, for scenes of many particles or atoms.
+ * The centers and the radii are kept as a structure of arrays (all the x coordinates, then all the
+ * y coordinates and so on), so a sphere costs four doubles instead of a {@link Sphere} with its
+ * {@link Point} and {@link Double3} objects.
+ * The set builds its own hierarchy over blocks of up to {@link #BLOCK} spheres, stored in flat arrays
+ * (see {@link FlatTree}), and the spheres are reordered so each block lies contiguously in the arrays.
+ * A ray is tested against a whole block in one loop over the arrays, without creating any objects.
+ */
+public class SphereSet extends Geometry {
+    /**
+     * The maximal number of spheres in a block (a leaf of the hierarchy)
+     */
+    private static final int BLOCK = 8;
+
+    /**
+     * The distance below which an intersection is considered to be at the head of the ray, as in
+     * {@link primitives.Util#alignZero}
+     */
+    private static final double EPSILON = 1e-10;
+
+    /**
+     * The coordinates of the centers and the radii of the spheres, in the order of the blocks
+     */
+    private final double[] xs, ys, zs, radii;
+    /**
+     * The index of each sphere in the buffers the set was created from
+     */
+    private final int[] ids;
+    /**
+     * The hierarchy over the spheres - the leaves index the arrays of the spheres
+     */
+    private final FlatTree tree;
+
+    /**
+     * Creates a set of spheres from a buffer of centers and a buffer of radii. The buffers are copied
+     * into the order of the blocks of the hierarchy.
+     *
+     * @param centers the coordinates of the centers - x, y, z of each sphere
+     * @param radii   the radius of each sphere
+     * @throws IllegalArgumentException if the buffers are empty, the centers are not made of triads,
+     *                                  the buffers have different numbers of spheres or a radius is not positive
+     */
+    public SphereSet(double[] centers, double[] radii) {
+        if (centers.length == 0 || centers.length % 3 != 0)
+            throw new IllegalArgumentException("The centers must be triads of coordinates");
+        int n = centers.length / 3;
+        if (radii.length != n)
+            throw new IllegalArgumentException("There must be a radius for each center");
+        for (double radius : radii)
+            if (!(radius > 0)) throw new IllegalArgumentException("The radii must be positive");
+
+        tree = new FlatTree(n, (i, box) -> {
+            for (int axis = 0; axis < 3; axis++) {
+                box[axis] = centers[3 * i + axis] - radii[i];
+                box[3 + axis] = centers[3 * i + axis] + radii[i];
+            }
+        }, BLOCK);
+        ids = tree.items;
+
+        xs = new double[n];
+        ys = new double[n];
+        zs = new double[n];
+        this.radii = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = centers[3 * ids[i]];
+            ys[i] = centers[3 * ids[i] + 1];
+            zs[i] = centers[3 * ids[i] + 2];
+            this.radii[i] = radii[ids[i]];
+        }
+    }
+
+    /**
+     * Returns the number of spheres in the set.
+     *
+     * @return the number of spheres
+     */
+    public int getSphereCount() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the normal of the sphere that the point is on. The intersections give the normal of their
+     * {@link Particle} directly, here the sphere is looked up as the one whose surface is nearest to the point.
+     *
+     * @param point the point on one of the spheres
+     * @return the normal of the nearest sphere at the point
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        return sphereNormal(findSphere(point), point);
+    }
+
+    /**
+     * Finds the sphere whose surface is nearest to a point (the sphere the point is on, for a point of the set).
+     * A sphere is inside the box of its node, so the nodes that are farther from the point than the nearest
+     * surface found so far are skipped.
+     *
+     * @param point the point
+     * @return the position of the nearest sphere in the arrays
+     */
+    private int findSphere(Point point) {
+        double px = point.getX(), py = point.getY(), pz = point.getZ();
+        int nearest = 0;
+        double best = Double.POSITIVE_INFINITY;
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            tree.start(traversal, 0);
+            for (int leaf; (leaf = tree.nextLeafNear(traversal, px, py, pz, best * best)) >= 0; )
+                for (int i = tree.nodeOffsets[leaf], end = i + tree.nodeCounts[leaf]; i < end; i++) {
+                    double dx = px - xs[i], dy = py - ys[i], dz = pz - zs[i];
+                    double distance = Math.abs(Math.sqrt(dx * dx + dy * dy + dz * dz) - radii[i]);
+                    if (distance < best) {
+                        best = distance;
+                        nearest = i;
+                    }
+                }
+        } finally {
+            traversal.release();
+        }
+        return nearest;
+    }
+
+    @Override
+    protected Vector getNormal(Point point, int primitive) {
+        return primitive < 0 ? getNormal(point) : sphereNormal(primitive, point);
+    }
+
+    @Override
+    protected Geometry getPrimitive(int primitive) {
+        return primitive < 0 ? this : new Particle(primitive);
+    }
+
+    /**
+     * Computes the normal of a sphere of the set at a point on it.
+     *
+     * @param slot  the position of the sphere in the arrays
+     * @param point the point on the sphere
+     * @return the normal at the point
+     */
+    private Vector sphereNormal(int slot, Point point) {
+        return new Vector(point.getX() - xs[slot], point.getY() - ys[slot], point.getZ() - zs[slot]).normalize();
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return tree.getBoundingBox();
+    }
+
+    /**
+     * A sphere of the set. Particles are created only for the intersection points,
+     * and they share the material and the emission of the set.
+     */
+    public class Particle extends Geometry {
+        /**
+         * The position of the sphere in the arrays of the set
+         */
+        private final int slot;
+
+        private Particle(int slot) {
+            super(null);
+            this.slot = slot;
+        }
+
+        /**
+         * Returns the index of the sphere in the buffers the set was created from.
+         *
+         * @return the index of the sphere
+         */
+        public int getIndex() {
+            return ids[slot];
+        }
+
+        /**
+         * Returns the set the particle belongs to.
+         *
+         * @return the set
+         */
+        public SphereSet getSet() {
+            return SphereSet.this;
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return sphereNormal(slot, point);
+        }
+
+        /**
+         * Particles are created for each intersection, so two particles are equal if they are the same sphere of the same set.
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return obj instanceof Particle other && other.getSet() == SphereSet.this && other.slot == slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(SphereSet.this) + slot;
+        }
+
+        @Override
+        public Color getEmission() {
+            return SphereSet.this.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            return SphereSet.this.getMaterial();
+        }
+
+        /**
+         * A particle shares the emission of its set, so it can't have one of its own.
+         *
+         * @throws UnsupportedOperationException always - set the emission of the set
+         */
+        @Override
+        public Geometry setEmission(Color emission) {
+            throw new UnsupportedOperationException("The emission of a particle is the emission of its set");
+        }
+
+        /**
+         * A particle shares the material of its set, so it can't have one of its own.
+         *
+         * @throws UnsupportedOperationException always - set the material of the set
+         */
+        @Override
+        public Geometry setMaterial(Material material) {
+            throw new UnsupportedOperationException("The material of a particle is the material of its set");
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+            List<GeoPoint> intersections = null;
+            Point p0 = ray.getP0();
+            Vector dir = ray.getDir();
+            double[] t = new double[2];
+            int count = intersect(slot, p0.getX(), p0.getY(), p0.getZ(), dir.getX(), dir.getY(), dir.getZ(), t);
+            for (int k = 0; k < count; k++) {
+                if (intersections == null) intersections = new ArrayList<>(2);
+                intersections.add(new GeoPoint(this, ray.getPoint(t[k])));
+            }
+            return intersections;
+        }
+    }
+
+    // ***************** Intersections ********************** //
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+        double[] t = new double[2];
+        List<GeoPoint> intersections = null;
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            tree.start(traversal, 0);
+            for (int leaf; (leaf = tree.nextLeaf(traversal, ox, oy, oz, invDx, invDy, invDz,
+                    Double.POSITIVE_INFINITY)) >= 0; )
+                for (int i = tree.nodeOffsets[leaf], end = i + tree.nodeCounts[leaf]; i < end; i++) {
+                    int points = intersect(i, ox, oy, oz, dx, dy, dz, t);
+                    for (int k = 0; k < points; k++) {
+                        if (intersections == null) intersections = new ArrayList<>();
+                        intersections.add(new GeoPoint(new Particle(i), ray.getPoint(t[k])));
+                    }
+                }
+        } finally {
+            traversal.release();
+        }
+        return intersections;
+    }
+
+    /**
+     * Finds the closest sphere that the ray crosses nearer than the current hit.
+     * The nodes are visited front to back, and the hit records just the position of the sphere.
+     *
+     * @param ray the ray to intersect with
+     * @param hit the closest hit so far
+     * @return true if the hit was updated
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            double t = findClosest(traversal, ox, oy, oz, dx, dy, dz, hit.getDistance());
+            return t != Double.POSITIVE_INFINITY && hit.update(this, traversal.closest, t);
+        } finally {
+            traversal.release();
+        }
+    }
+
+    /**
+     * Finds the closest intersections of a stream of rays with the spheres, each ray traversing the hierarchy
+     * straight from the arrays of the stream.
+     *
+     * @param rays the rays and their closest hits so far
+     */
+    @Override
+    protected void findClosestHitsHelper(RayStream rays) {
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            for (int i = 0, n = rays.size(); i < n; i++) {
+                double t = findClosest(traversal, rays.ox[i], rays.oy[i], rays.oz[i],
+                        rays.dx[i], rays.dy[i], rays.dz[i], rays.tMax[i]);
+                if (t != Double.POSITIVE_INFINITY) rays.update(i, this, traversal.closest, t);
+            }
+        } finally {
+            traversal.release();
+        }
+    }
+
+    /**
+     * Traverses the hierarchy front to back to find the closest sphere that a ray crosses.
+     *
+     * @param traversal   the traversal stack, which receives the position of the sphere in {@link FlatNodes#closest}
+     * @param maxDistance the maximal distance (excluded) of the intersection
+     * @return the distance of the intersection, or {@link Double#POSITIVE_INFINITY} if the ray crosses no sphere
+     * before maxDistance
+     */
+    private double findClosest(FlatNodes traversal, double ox, double oy, double oz,
+                               double dx, double dy, double dz, double maxDistance) {
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+        double closest = Double.POSITIVE_INFINITY;
+        double tRoot = intersectNode(0, ox, oy, oz, invDx, invDy, invDz, maxDistance);
+        if (tRoot == Double.POSITIVE_INFINITY) return closest;
+        tree.start(traversal, tRoot);
+        for (int leaf; (leaf = tree.nextNearestLeaf(traversal, ox, oy, oz, invDx, invDy, invDz,
+                maxDistance)) >= 0; ) {
+            int from = tree.nodeOffsets[leaf];
+            double t = closestInBlock(traversal, from, from + tree.nodeCounts[leaf],
+                    ox, oy, oz, dx, dy, dz, maxDistance);
+            if (t < maxDistance) maxDistance = closest = t;
+        }
+        return closest;
+    }
+
+    /**
+     * Multiplies the transparency by the set's kT for each sphere surface crossed nearer than maxDistance,
+     * without creating the intersection points.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the accumulated transparency
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+        double[] t = new double[2];
+        Double3 kT = getMaterial().kT;
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            tree.start(traversal, 0);
+            for (int leaf; (leaf = tree.nextLeaf(traversal, ox, oy, oz, invDx, invDy, invDz, maxDistance)) >= 0; )
+                for (int i = tree.nodeOffsets[leaf], end = i + tree.nodeCounts[leaf]; i < end; i++) {
+                    int points = intersect(i, ox, oy, oz, dx, dy, dz, t);
+                    for (int k = 0; k < points; k++)
+                        if (t[k] < maxDistance) {
+                            ktr = ktr.product(kT);
+                            if (ktr.lowerThan(minK)) return ktr;
+                        }
+                }
+        } finally {
+            traversal.release();
+        }
+        return ktr;
+    }
+
+    /**
+     * Finds the sphere of a block that the ray crosses first, nearer than maxDistance.
+     * The loop does the same arithmetic for each sphere of the block, reading the arrays in order
+     * and keeping the nearest distance without calls or allocations, so the JIT compiler may unroll
+     * and vectorize it.
+     *
+     * @param traversal   the traversal stack, which receives the position of the nearest sphere
+     *                    in {@link FlatNodes#closest} if the ray crosses one
+     * @param from        the position of the first sphere of the block
+     * @param to          the position after the last sphere of the block
+     * @param maxDistance the maximal distance (excluded) of the intersection
+     * @return the distance of the nearest sphere, or maxDistance if the ray crosses none of the block before it
+     */
+    private double closestInBlock(FlatNodes traversal, int from, int to, double ox, double oy, double oz,
+                                  double dx, double dy, double dz, double maxDistance) {
+        int closest = -1;
+        for (int i = from; i < to; i++) {
+            double t = nearest(i, ox, oy, oz, dx, dy, dz);
+            if (t < maxDistance) {
+                maxDistance = t;
+                closest = i;
+            }
+        }
+        if (closest >= 0) traversal.closest = closest;
+        return maxDistance;
+    }
+
+    /**
+     * Computes the distance of the first intersection of the ray with a sphere, as {@link Sphere} does:
+     * the nearer point, or the farther one when the ray starts inside the sphere.
+     *
+     * @param slot the position of the sphere in the arrays
+     * @return the distance, or {@link Double#POSITIVE_INFINITY} if the ray does not cross the sphere
+     */
+    private double nearest(int slot, double ox, double oy, double oz, double dx, double dy, double dz) {
+        double ux = xs[slot] - ox, uy = ys[slot] - oy, uz = zs[slot] - oz;
+        double tm = ux * dx + uy * dy + uz * dz;
+        double r = radii[slot];
+        double th2 = r * r - (ux * ux + uy * uy + uz * uz - tm * tm);
+        if (th2 <= EPSILON) return Double.POSITIVE_INFINITY;//the ray misses the sphere or touches it
+        double th = Math.sqrt(th2);
+        double t = tm - th;
+        if (t <= EPSILON) t = tm + th;
+        return t > EPSILON ? t : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Computes the distances of the intersections of the ray with a sphere, in front of the head of the ray.
+     *
+     * @param slot the position of the sphere in the arrays
+     * @param t    receives the distances, nearer first
+     * @return the number of the intersections (0, 1 or 2)
+     */
+    private int intersect(int slot, double ox, double oy, double oz, double dx, double dy, double dz, double[] t) {
+        double ux = xs[slot] - ox, uy = ys[slot] - oy, uz = zs[slot] - oz;
+        double tm = ux * dx + uy * dy + uz * dz;
+        double r = radii[slot];
+        double th2 = r * r - (ux * ux + uy * uy + uz * uz - tm * tm);
+        if (th2 <= EPSILON) return 0;
+        double th = Math.sqrt(th2);
+        int count = 0;
+        if (tm - th > EPSILON) t[count++] = tm - th;
+        if (tm + th > EPSILON) t[count++] = tm + th;
+        return count;
+    }
+
+    /**
+     * Slab test of the ray with the box of a node, see {@link FlatNodes#intersect}.
+     *
+     * @return the entering distance, or {@link Double#POSITIVE_INFINITY} if the ray misses the box before maxDistance
+     */
+    private double intersectNode(int node, double ox, double oy, double oz,
+                                 double invDx, double invDy, double invDz, double maxDistance) {
+        return FlatNodes.intersect(tree.nodeBounds, node, ox, oy, oz, invDx, invDy, invDz, maxDistance);
+    }
+}
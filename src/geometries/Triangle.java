@@ -4,42 +4,107 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
-import java.util.List;
-
 public class Triangle extends Polygon{
+    /**
+     * The first vertex of the triangle and its two edges to the other vertices,
+     * kept for the intersection kernel
+     */
+    private double x0, y0, z0;
+    private final double e1x, e1y, e1z;
+    private final double e2x, e2y, e2z;
+    /**
+     * Whether the triangle is hit only from its front side (where the normal points)
+     */
+    private boolean cullBackFaces = false;
+
     public Triangle(Point p1, Point p2,Point p3) {//con
         super(p1,p2,p3);
+        x0 = p1.getX();
+        y0 = p1.getY();
+        z0 = p1.getZ();
+        e1x = p2.getX() - x0;
+        e1y = p2.getY() - y0;
+        e1z = p2.getZ() - z0;
+        e2x = p3.getX() - x0;
+        e2y = p3.getY() - y0;
+        e2z = p3.getZ() - z0;
     }
 
     /**
-     Computes the intersection point(s) between the current triangle and a given ray.
-     @param ray the ray to intersect with the triangle
-     @return a List<Point> containing the intersection point(s) if exists, otherwise null.
-     @throws IllegalArgumentException if the ray is null
+     * Moves the triangle by an offset, keeping its shape and orientation.
+     *
+     * @param offset the offset to move the triangle by
+     * @return the triangle itself
      */
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    public Triangle translate(Vector offset) {
+        super.translate(offset);
+        x0 += offset.getX();
+        y0 += offset.getY();
+        z0 += offset.getZ();
+        return this;
+    }
 
-        if (super.plane.findIntersections(ray) == null) {//at first find if thar is intersection with the plane of the triangle
-            return null;
-        }
-        //calculate according to the calculation in the course's book
-        Point p = super.plane.findIntersections(ray).get(0);
-        Vector v1 = this.vertices.get(0).subtract(ray.getP0());
-        Vector v2 = this.vertices.get(1).subtract(ray.getP0());
-        Vector v3 = this.vertices.get(2).subtract(ray.getP0());
-        Vector n1 = v1.crossProduct(v2).normalize();
-        Vector n2 = v2.crossProduct(v3).normalize();
-        Vector n3 = v3.crossProduct(v1).normalize();
-        double a = ray.getDir().dotProduct(n1);
-        double b = ray.getDir().dotProduct(n2);
-        double c = ray.getDir().dotProduct(n3);
-        if (a == 0 || b == 0 || c == 0) {
-            return null;
-        }
-        if (a * b > 0 && b * c > 0) {
-            return List.of(new GeoPoint(this,p));
+    /**
+     * Sets whether the triangle is hit only from its front side, where its normal
+     * (by the order of the vertices) points.
+     *
+     * @param cullBackFaces true to ignore the hits on the back side of the triangle
+     * @return the triangle itself
+     */
+    public Triangle setCullBackFaces(boolean cullBackFaces) {
+        this.cullBackFaces = cullBackFaces;
+        return this;
+    }
+
+    /**
+     * Returns whether the triangle is hit only from its front side, see {@link #setCullBackFaces(boolean)}.
+     *
+     * @return true if the hits on the back side of the triangle are ignored
+     */
+    public boolean isCullBackFaces() {
+        return cullBackFaces;
+    }
+
+    /**
+     * Computes the distance of the intersection of the ray with the triangle,
+     * by the kernel in {@link TriangleIntersector} with the precomputed edges of the triangle.
+     *
+     * @param ray the ray to intersect with the triangle
+     * @return the distance of the intersection, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    @Override
+    protected double intersect(Ray ray) {
+        return intersect(ray, null);
+    }
+
+    /**
+     * Computes the distance of the intersection point of the ray with the triangle,
+     * and optionally its barycentric coordinates.
+     *
+     * @param ray         the ray to intersect with the triangle
+     * @param barycentric if not null, receives the weights (u, v) of the second and the third vertices
+     *                    in the intersection point
+     * @return the distance of the intersection point, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    public double intersect(Ray ray, double[] barycentric) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        return TriangleIntersector.intersect(x0, y0, z0, e1x, e1y, e1z, e2x, e2y, e2z,
+                p0.getX(), p0.getY(), p0.getZ(), dir.getX(), dir.getY(), dir.getZ(), cullBackFaces, barycentric);
+    }
+
+    /**
+     * Finds the closest intersections of a stream of rays with the triangle, in one loop over the rays.
+     *
+     * @param rays the rays and their closest hits so far
+     */
+    @Override
+    protected void findClosestHitsHelper(RayStream rays) {
+        for (int i = 0, n = rays.size(); i < n; i++) {
+            double t = TriangleIntersector.intersect(x0, y0, z0, e1x, e1y, e1z, e2x, e2y, e2z,
+                    rays.ox[i], rays.oy[i], rays.oz[i], rays.dx[i], rays.dy[i], rays.dz[i], cullBackFaces, null);
+            if (t != Double.POSITIVE_INFINITY) rays.update(i, this, -1, t);
         }
-        return null;
     }
 }
@@ -0,0 +1,199 @@
+package geometries;
+
+import static primitives.Util.alignZero;
+
+/**
+ * The ray-triangle intersection kernels shared by {@link Triangle} and {@link TriangleMesh}.
+ * <ul>
+ * <li>{@link #intersect} (Moller-Trumbore algorithm) gets the triangle by a vertex and its two edges from that
+ * vertex, so a triangle that keeps its edges does not compute them again for each ray.
+ * Like the rest of the geometries, rays through the edges or the vertices of the triangle do not intersect it.</li>
+ * <li>{@link #intersectWatertight} (Woop, Benthin and Wald) gets the triangle by its vertices, for the triangles
+ * of a mesh that share edges. A ray through a shared edge hits exactly one of the triangles of the edge,
+ * so the mesh has no cracks along its edges.</li>
+ * </ul>
+ * No intermediate {@link primitives.Vector} is created.
+ */
+final class TriangleIntersector {
+    /**
+     * The determinant, relative to the lengths of the edges, below which the ray is considered
+     * parallel to the triangle (the sine of the angle between the ray and the plane of the triangle)
+     */
+    private static final double PARALLEL_TOLERANCE = 1e-12;
+
+    /**
+     * Empty private constructor to hide the public one
+     */
+    private TriangleIntersector() {
+    }
+
+    /**
+     * Intersects a ray with a triangle.
+     *
+     * @param x0            the x coordinate of the first vertex
+     * @param y0            the y coordinate of the first vertex
+     * @param z0            the z coordinate of the first vertex
+     * @param e1x           the x coordinate of the edge from the first vertex to the second one
+     * @param e1y           the y coordinate of the edge from the first vertex to the second one
+     * @param e1z           the z coordinate of the edge from the first vertex to the second one
+     * @param e2x           the x coordinate of the edge from the first vertex to the third one
+     * @param e2y           the y coordinate of the edge from the first vertex to the third one
+     * @param e2z           the z coordinate of the edge from the first vertex to the third one
+     * @param ox            the x coordinate of the ray origin
+     * @param oy            the y coordinate of the ray origin
+     * @param oz            the z coordinate of the ray origin
+     * @param dx            the x coordinate of the ray direction
+     * @param dy            the y coordinate of the ray direction
+     * @param dz            the z coordinate of the ray direction
+     * @param cullBackFaces whether to ignore a hit on the back of the triangle - where the ray goes along
+     *                      the normal e1 x e2
+     * @param barycentric   if not null, receives the barycentric coordinates (u, v) of the hit point
+     *                      (the weights of the second and the third vertices)
+     * @return the distance of the intersection point, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    static double intersect(double x0, double y0, double z0,
+                            double e1x, double e1y, double e1z,
+                            double e2x, double e2y, double e2z,
+                            double ox, double oy, double oz,
+                            double dx, double dy, double dz,
+                            boolean cullBackFaces, double[] barycentric) {
+        // p = dir x e2
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        // det = e1 . (dir x e2) = -dir . (e1 x e2), positive when the ray hits the front of the triangle
+        double det = e1x * px + e1y * py + e1z * pz;
+        // the determinant grows with the edges, so it is compared to their lengths (|det| <= tolerance*|e1|*|e2|)
+        double e1e1 = e1x * e1x + e1y * e1y + e1z * e1z, e2e2 = e2x * e2x + e2y * e2y + e2z * e2z;
+        if (det * det <= PARALLEL_TOLERANCE * PARALLEL_TOLERANCE * e1e1 * e2e2 || (cullBackFaces && det < 0))
+            return Double.POSITIVE_INFINITY;
+        double invDet = 1 / det;
+        double tx = ox - x0, ty = oy - y0, tz = oz - z0;
+        double u = alignZero((tx * px + ty * py + tz * pz) * invDet);
+        if (u <= 0 || u >= 1) return Double.POSITIVE_INFINITY;
+        // q = t x e1
+        double qx = ty * e1z - tz * e1y, qy = tz * e1x - tx * e1z, qz = tx * e1y - ty * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * invDet);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return Double.POSITIVE_INFINITY;
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * invDet);
+        if (t <= 0) return Double.POSITIVE_INFINITY;
+        if (barycentric != null) {
+            barycentric[0] = u;
+            barycentric[1] = v;
+        }
+        return t;
+    }
+
+    /**
+     * Intersects a ray with a triangle by its vertices, so the triangles that share an edge
+     * compute the edge from the same coordinates. The vertices are moved to the ray's system - the origin
+     * at the ray's head, and sheared so the ray goes along the z axis - and the ray crosses the triangle
+     * if it is on the inner side of all the edges in the xy plane. The edge functions of a shared edge are
+     * computed in the same way in both triangles, so a ray never slips between them.
+     * A ray exactly on an edge is taken by only one triangle of the edge - the one on the left of the edge,
+     * directed from its lower vertex (by x, then by y) to its higher one, which is the same for both triangles.
+     *
+     * @param x0            the x coordinate of the first vertex
+     * @param y0            the y coordinate of the first vertex
+     * @param z0            the z coordinate of the first vertex
+     * @param x1            the x coordinate of the second vertex
+     * @param y1            the y coordinate of the second vertex
+     * @param z1            the z coordinate of the second vertex
+     * @param x2            the x coordinate of the third vertex
+     * @param y2            the y coordinate of the third vertex
+     * @param z2            the z coordinate of the third vertex
+     * @param ox            the x coordinate of the ray origin
+     * @param oy            the y coordinate of the ray origin
+     * @param oz            the z coordinate of the ray origin
+     * @param dx            the x coordinate of the ray direction
+     * @param dy            the y coordinate of the ray direction
+     * @param dz            the z coordinate of the ray direction
+     * @param cullBackFaces whether to ignore a hit on the back of the triangle - where the ray goes along
+     *                      the normal (v1 - v0) x (v2 - v0)
+     * @param barycentric   if not null, receives the barycentric coordinates (u, v) of the hit point
+     *                      (the weights of the second and the third vertices)
+     * @return the distance of the intersection point, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    static double intersectWatertight(double x0, double y0, double z0,
+                                      double x1, double y1, double z1,
+                                      double x2, double y2, double z2,
+                                      double ox, double oy, double oz,
+                                      double dx, double dy, double dz,
+                                      boolean cullBackFaces, double[] barycentric) {
+        // the axis along which the ray goes the most becomes z, and the other two follow it cyclically,
+        // swapped when the ray goes backwards along z so the winding of the triangle is kept
+        double adx = Math.abs(dx), ady = Math.abs(dy), adz = Math.abs(dz);
+        int kz = adx > ady ? (adx > adz ? 0 : 2) : (ady > adz ? 1 : 2);
+        int kx = kz == 2 ? 0 : kz + 1, ky = kx == 2 ? 0 : kx + 1;
+        double dirZ = component(kz, dx, dy, dz);
+        if (dirZ < 0) {
+            int k = kx;
+            kx = ky;
+            ky = k;
+        }
+        double sx = component(kx, dx, dy, dz) / dirZ, sy = component(ky, dx, dy, dz) / dirZ, sz = 1 / dirZ;
+
+        // the vertices relative to the ray's head, sheared
+        double az = component(kz, x0 - ox, y0 - oy, z0 - oz);
+        double ax = component(kx, x0 - ox, y0 - oy, z0 - oz) - sx * az;
+        double ay = component(ky, x0 - ox, y0 - oy, z0 - oz) - sy * az;
+        double bz = component(kz, x1 - ox, y1 - oy, z1 - oz);
+        double bx = component(kx, x1 - ox, y1 - oy, z1 - oz) - sx * bz;
+        double by = component(ky, x1 - ox, y1 - oy, z1 - oz) - sy * bz;
+        double cz = component(kz, x2 - ox, y2 - oy, z2 - oz);
+        double cx = component(kx, x2 - ox, y2 - oy, z2 - oz) - sx * cz;
+        double cy = component(ky, x2 - ox, y2 - oy, z2 - oz) - sy * cz;
+
+        // the edge functions - twice the areas of the triangles of the ray with each edge
+        double u = cx * by - cy * bx, v = ax * cy - ay * cx, w = bx * ay - by * ax;
+        if ((u < 0 || v < 0 || w < 0) && (u > 0 || v > 0 || w > 0)) return Double.POSITIVE_INFINITY;
+        double det = u + v + w;
+        // only an exactly parallel triangle is missed, a tolerance would open cracks between the triangles
+        if (det == 0 || (cullBackFaces && det < 0)) return Double.POSITIVE_INFINITY;
+        if (u == 0 && !ownsEdge(bx, by, cx, cy, ax, ay)) return Double.POSITIVE_INFINITY;
+        if (v == 0 && !ownsEdge(cx, cy, ax, ay, bx, by)) return Double.POSITIVE_INFINITY;
+        if (w == 0 && !ownsEdge(ax, ay, bx, by, cx, cy)) return Double.POSITIVE_INFINITY;
+
+        double invDet = 1 / det;
+        double t = alignZero((u * az + v * bz + w * cz) * sz * invDet);
+        if (t <= 0) return Double.POSITIVE_INFINITY;
+        if (barycentric != null) {
+            barycentric[0] = v * invDet;
+            barycentric[1] = w * invDet;
+        }
+        return t;
+    }
+
+    /**
+     * Returns a coordinate of a vector by its axis.
+     *
+     * @param axis the axis - 0 for x, 1 for y, 2 for z
+     * @return the coordinate
+     */
+    private static double component(int axis, double x, double y, double z) {
+        return axis == 0 ? x : axis == 1 ? y : z;
+    }
+
+    /**
+     * Checks whether a triangle takes the rays exactly on one of its edges (in the ray's sheared xy plane) -
+     * the triangle must be on the left of the edge when it is directed from its lower vertex (by x, then by y)
+     * to its higher one. The neighbour triangle of the edge is on its other side, so exactly one of them takes the ray.
+     *
+     * @param px the x coordinate of one vertex of the edge
+     * @param py the y coordinate of one vertex of the edge
+     * @param qx the x coordinate of the other vertex of the edge
+     * @param qy the y coordinate of the other vertex of the edge
+     * @param rx the x coordinate of the third vertex of the triangle
+     * @param ry the y coordinate of the third vertex of the triangle
+     * @return true if the triangle takes the rays on the edge
+     */
+    private static boolean ownsEdge(double px, double py, double qx, double qy, double rx, double ry) {
+        if (px > qx || (px == qx && py > qy)) {
+            double t = px;
+            px = qx;
+            qx = t;
+            t = py;
+            py = qy;
+            qy = t;
+        }
+        return (qx - px) * (ry - py) - (qy - py) * (rx - px) > 0;
+    }
+}
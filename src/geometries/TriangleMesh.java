@@ -0,0 +1,478 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A mesh of triangles that share one material and emission.
+ * The vertices are kept in one flat buffer of coordinates and the triangles in one buffer of
+ * vertex indices, so a triangle costs three ints instead of a whole {@link Triangle} object.
+ * The mesh builds its own bounding volume hierarchy over the triangles, stored in flat arrays as well
+ * (see {@link FlatTree}).
+ */
+public class TriangleMesh extends Geometry {
+    /**
+     * The maximal number of triangles in a leaf of the hierarchy
+     */
+    private static final int MAX_LEAF_SIZE = 4;
+    /**
+     * The coordinates of the vertices - x, y, z of each vertex
+     */
+    private final double[] positions;
+    /**
+     * The indices of the vertices of the triangles - 3 for each triangle
+     */
+    private final int[] indices;
+    /**
+     * The hierarchy over the triangles
+     */
+    private final FlatTree tree;
+    /**
+     * The indices of the triangles, in the order of the leaves of the hierarchy
+     */
+    private final int[] triangles;
+    /**
+     * Whether the triangles are hit only from their front side (where the normal points)
+     */
+    private boolean cullBackFaces = false;
+
+    /**
+     * Creates a mesh from vertex and index buffers. The buffers are kept (not copied),
+     * so several meshes may share the same vertex buffer.
+     *
+     * @param positions the coordinates of the vertices - x, y, z of each vertex
+     * @param indices   the indices of the vertices of the triangles - 3 for each triangle
+     * @throws IllegalArgumentException if the buffers are empty, are not made of triads,
+     *                                  or an index is out of the vertex buffer
+     */
+    public TriangleMesh(double[] positions, int[] indices) {
+        if (positions.length == 0 || positions.length % 3 != 0)
+            throw new IllegalArgumentException("The positions must be triads of coordinates");
+        if (indices.length == 0 || indices.length % 3 != 0)
+            throw new IllegalArgumentException("The indices must be triads of vertices");
+        int vertices = positions.length / 3;
+        for (int index : indices)
+            if (index < 0 || index >= vertices)
+                throw new IllegalArgumentException("A vertex index is out of the positions buffer");
+        this.positions = positions;
+        this.indices = indices;
+
+        tree = new FlatTree(indices.length / 3, this::triangleBounds, MAX_LEAF_SIZE);
+        triangles = tree.items;
+    }
+
+    /**
+     * Sets whether the triangles are hit only from their front side, where the normal of
+     * each triangle (by the order of its vertices) points. This is useful for closed meshes,
+     * where the back sides are never visible.
+     *
+     * @param cullBackFaces true to ignore the hits on the back sides of the triangles
+     * @return the mesh itself
+     */
+    public TriangleMesh setCullBackFaces(boolean cullBackFaces) {
+        this.cullBackFaces = cullBackFaces;
+        return this;
+    }
+
+    /**
+     * Returns the number of triangles in the mesh.
+     *
+     * @return the number of triangles
+     */
+    public int getTriangleCount() {
+        return triangles.length;
+    }
+
+    /**
+     * Returns the triangle of the mesh as a {@link Face} that shares the mesh's material.
+     *
+     * @param index the index of the triangle
+     * @return the face of the triangle
+     */
+    public Face getFace(int index) {
+        return new Face(index);
+    }
+
+    /**
+     * Returns the normal of the triangle that the point is on. The intersections give the normal of their
+     * {@link Face} directly, here the triangle is looked up as the one nearest to the point.
+     *
+     * @param point the point on the mesh
+     * @return the normal of the triangle nearest to the point
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        return faceNormal(findFace(point));
+    }
+
+    @Override
+    protected Vector getNormal(Point point, int primitive) {
+        return primitive < 0 ? getNormal(point) : faceNormal(primitive);
+    }
+
+    @Override
+    protected Geometry getPrimitive(int primitive) {
+        return primitive < 0 ? this : new Face(primitive);
+    }
+
+    /**
+     * Computes the normal of a triangle of the mesh, by the order of its vertices.
+     *
+     * @param triangle the index of the triangle
+     * @return the normal of the triangle
+     */
+    private Vector faceNormal(int triangle) {
+        int i0 = 3 * indices[3 * triangle], i1 = 3 * indices[3 * triangle + 1], i2 = 3 * indices[3 * triangle + 2];
+        Vector e1 = new Vector(positions[i1] - positions[i0], positions[i1 + 1] - positions[i0 + 1],
+                positions[i1 + 2] - positions[i0 + 2]);
+        Vector e2 = new Vector(positions[i2] - positions[i0], positions[i2 + 1] - positions[i0 + 1],
+                positions[i2 + 2] - positions[i0 + 2]);
+        return e1.crossProduct(e2).normalize();
+    }
+
+    /**
+     * Finds the triangle nearest to a point (the triangle the point is on, for a point on the mesh).
+     * The nodes of the hierarchy that are farther from the point than the nearest triangle found so far are skipped.
+     *
+     * @param point the point
+     * @return the index of the nearest triangle
+     */
+    private int findFace(Point point) {
+        double px = point.getX(), py = point.getY(), pz = point.getZ();
+        int nearest = -1;
+        double best = Double.POSITIVE_INFINITY;
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            tree.start(traversal, 0);
+            for (int leaf; (leaf = tree.nextLeafNear(traversal, px, py, pz, best)) >= 0; )
+                for (int i = tree.nodeOffsets[leaf], end = i + tree.nodeCounts[leaf]; i < end; i++) {
+                    double distance = distanceSquared(triangles[i], px, py, pz);
+                    if (distance < best) {
+                        best = distance;
+                        nearest = triangles[i];
+                    }
+                }
+        } finally {
+            traversal.release();
+        }
+        return nearest < 0 ? triangles[0] : nearest;//a mesh of degenerated triangles only
+    }
+
+    /**
+     * Computes the squared distance of a point from a triangle of the mesh, by the closest point of the
+     * triangle - inside it, on one of its edges or at one of its vertices.
+     *
+     * @param triangle the index of the triangle
+     * @return the squared distance
+     */
+    private double distanceSquared(int triangle, double px, double py, double pz) {
+        int i0 = 3 * indices[3 * triangle], i1 = 3 * indices[3 * triangle + 1], i2 = 3 * indices[3 * triangle + 2];
+        double ax = positions[i0], ay = positions[i0 + 1], az = positions[i0 + 2];
+        double abx = positions[i1] - ax, aby = positions[i1 + 1] - ay, abz = positions[i1 + 2] - az;
+        double acx = positions[i2] - ax, acy = positions[i2 + 1] - ay, acz = positions[i2 + 2] - az;
+        double apx = px - ax, apy = py - ay, apz = pz - az;
+        // the projections of the point on the edges from each vertex locate the region of the closest point
+        double d1 = abx * apx + aby * apy + abz * apz, d2 = acx * apx + acy * apy + acz * apz;
+        if (d1 <= 0 && d2 <= 0) return apx * apx + apy * apy + apz * apz;//vertex a
+        double d3 = d1 - (abx * abx + aby * aby + abz * abz), d4 = d2 - (abx * acx + aby * acy + abz * acz);
+        if (d3 >= 0 && d4 <= d3) return squared(apx - abx, apy - aby, apz - abz);//vertex b
+        double d5 = d1 - (abx * acx + aby * acy + abz * acz), d6 = d2 - (acx * acx + acy * acy + acz * acz);
+        if (d6 >= 0 && d5 <= d6) return squared(apx - acx, apy - acy, apz - acz);//vertex c
+        double vc = d1 * d4 - d3 * d2;
+        if (vc <= 0 && d1 >= 0 && d3 <= 0) {//edge ab
+            double v = d1 / (d1 - d3);
+            return squared(apx - v * abx, apy - v * aby, apz - v * abz);
+        }
+        double vb = d5 * d2 - d1 * d6;
+        if (vb <= 0 && d2 >= 0 && d6 <= 0) {//edge ac
+            double w = d2 / (d2 - d6);
+            return squared(apx - w * acx, apy - w * acy, apz - w * acz);
+        }
+        double va = d3 * d6 - d5 * d4;
+        if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) {//edge bc
+            double w = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+            return squared(apx - abx - w * (acx - abx), apy - aby - w * (acy - aby), apz - abz - w * (acz - abz));
+        }
+        double v = vb / (va + vb + vc), w = vc / (va + vb + vc);//inside the triangle
+        return squared(apx - v * abx - w * acx, apy - v * aby - w * acy, apz - v * abz - w * acz);
+    }
+
+    private static double squared(double x, double y, double z) {
+        return x * x + y * y + z * z;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return tree.getBoundingBox();
+    }
+
+    /**
+     * A triangle of the mesh. Faces are created only for the intersection points,
+     * and they share the material and the emission of the mesh.
+     */
+    public class Face extends Geometry {
+        /**
+         * The index of the triangle in the mesh
+         */
+        private final int index;
+
+        private Face(int index) {
+            super(null);
+            this.index = index;
+        }
+
+        /**
+         * Returns the index of the triangle in the mesh.
+         *
+         * @return the index of the triangle
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the mesh the face belongs to.
+         *
+         * @return the mesh
+         */
+        public TriangleMesh getMesh() {
+            return TriangleMesh.this;
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return faceNormal(index);
+        }
+
+        @Override
+        public Color getEmission() {
+            return TriangleMesh.this.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            return TriangleMesh.this.getMaterial();
+        }
+
+        /**
+         * A face shares the emission of its mesh, so it can't have one of its own.
+         *
+         * @throws UnsupportedOperationException always - set the emission of the mesh
+         */
+        @Override
+        public Geometry setEmission(Color emission) {
+            throw new UnsupportedOperationException("The emission of a face is the emission of its mesh");
+        }
+
+        /**
+         * A face shares the material of its mesh, so it can't have one of its own.
+         *
+         * @throws UnsupportedOperationException always - set the material of the mesh
+         */
+        @Override
+        public Geometry setMaterial(Material material) {
+            throw new UnsupportedOperationException("The material of a face is the material of its mesh");
+        }
+
+        /**
+         * Faces are created for each intersection, so two faces are equal if they are the same triangle of the same mesh.
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return obj instanceof Face other && other.getMesh() == TriangleMesh.this && other.index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(TriangleMesh.this) + index;
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+            Point p0 = ray.getP0();
+            Vector dir = ray.getDir();
+            double t = intersect(index, p0.getX(), p0.getY(), p0.getZ(), dir.getX(), dir.getY(), dir.getZ());
+            return t == Double.POSITIVE_INFINITY ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+        }
+    }
+
+    // ***************** Intersections ********************** //
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+        List<GeoPoint> intersections = null;
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            tree.start(traversal, 0);
+            for (int leaf; (leaf = tree.nextLeaf(traversal, ox, oy, oz, invDx, invDy, invDz,
+                    Double.POSITIVE_INFINITY)) >= 0; )
+                for (int i = tree.nodeOffsets[leaf], end = i + tree.nodeCounts[leaf]; i < end; i++) {
+                    double t = intersect(triangles[i], ox, oy, oz, dx, dy, dz);
+                    if (t != Double.POSITIVE_INFINITY) {
+                        if (intersections == null) intersections = new ArrayList<>();
+                        intersections.add(new GeoPoint(new Face(triangles[i]), ray.getPoint(t)));
+                    }
+                }
+        } finally {
+            traversal.release();
+        }
+        return intersections;
+    }
+
+    /**
+     * Finds the closest triangle that the ray crosses nearer than the current hit.
+     * The nodes are visited front to back, and the hit records just the index of the triangle.
+     *
+     * @param ray the ray to intersect with
+     * @param hit the closest hit so far
+     * @return true if the hit was updated
+     */
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            double t = findClosest(traversal, ox, oy, oz, dx, dy, dz, hit.getDistance());
+            return t != Double.POSITIVE_INFINITY && hit.update(this, traversal.closest, t);
+        } finally {
+            traversal.release();
+        }
+    }
+
+    /**
+     * Finds the closest intersections of a stream of rays with the triangles, each ray traversing the hierarchy
+     * straight from the arrays of the stream.
+     *
+     * @param rays the rays and their closest hits so far
+     */
+    @Override
+    protected void findClosestHitsHelper(RayStream rays) {
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            for (int i = 0, n = rays.size(); i < n; i++) {
+                double t = findClosest(traversal, rays.ox[i], rays.oy[i], rays.oz[i],
+                        rays.dx[i], rays.dy[i], rays.dz[i], rays.tMax[i]);
+                if (t != Double.POSITIVE_INFINITY) rays.update(i, this, traversal.closest, t);
+            }
+        } finally {
+            traversal.release();
+        }
+    }
+
+    /**
+     * Traverses the hierarchy front to back to find the closest triangle that a ray crosses.
+     *
+     * @param traversal   the traversal stack, which receives the index of the triangle in {@link FlatNodes#closest}
+     * @param maxDistance the maximal distance (excluded) of the intersection
+     * @return the distance of the intersection, or {@link Double#POSITIVE_INFINITY} if the ray crosses no triangle
+     * before maxDistance
+     */
+    private double findClosest(FlatNodes traversal, double ox, double oy, double oz,
+                               double dx, double dy, double dz, double maxDistance) {
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+        double closest = Double.POSITIVE_INFINITY;
+        double tRoot = intersectNode(0, ox, oy, oz, invDx, invDy, invDz, maxDistance);
+        if (tRoot == Double.POSITIVE_INFINITY) return closest;
+        tree.start(traversal, tRoot);
+        for (int leaf; (leaf = tree.nextNearestLeaf(traversal, ox, oy, oz, invDx, invDy, invDz,
+                maxDistance)) >= 0; )
+            for (int i = tree.nodeOffsets[leaf], end = i + tree.nodeCounts[leaf]; i < end; i++) {
+                double t = intersect(triangles[i], ox, oy, oz, dx, dy, dz);
+                if (t < maxDistance) {
+                    maxDistance = closest = t;
+                    traversal.closest = triangles[i];
+                }
+            }
+        return closest;
+    }
+
+    /**
+     * Multiplies the transparency by the mesh's kT for each triangle crossed nearer than maxDistance,
+     * without creating the intersection points.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the accumulated transparency
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double ox = p0.getX(), oy = p0.getY(), oz = p0.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double invDx = 1 / dx, invDy = 1 / dy, invDz = 1 / dz;
+        Double3 kT = getMaterial().kT;
+        FlatNodes traversal = FlatNodes.acquire();
+        try {
+            tree.start(traversal, 0);
+            for (int leaf; (leaf = tree.nextLeaf(traversal, ox, oy, oz, invDx, invDy, invDz, maxDistance)) >= 0; )
+                for (int i = tree.nodeOffsets[leaf], end = i + tree.nodeCounts[leaf]; i < end; i++) {
+                    if (intersect(triangles[i], ox, oy, oz, dx, dy, dz) < maxDistance) {
+                        ktr = ktr.product(kT);
+                        if (ktr.lowerThan(minK)) return ktr;
+                    }
+                }
+        } finally {
+            traversal.release();
+        }
+        return ktr;
+    }
+
+    /**
+     * Intersects the ray with a triangle of the mesh, by the watertight kernel of {@link TriangleIntersector},
+     * so a ray through an edge hits exactly one of the triangles that share it.
+     *
+     * @return the distance of the intersection point, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    private double intersect(int triangle, double ox, double oy, double oz, double dx, double dy, double dz) {
+        int i0 = 3 * indices[3 * triangle], i1 = 3 * indices[3 * triangle + 1], i2 = 3 * indices[3 * triangle + 2];
+        return TriangleIntersector.intersectWatertight(positions[i0], positions[i0 + 1], positions[i0 + 2],
+                positions[i1], positions[i1 + 1], positions[i1 + 2],
+                positions[i2], positions[i2 + 1], positions[i2 + 2],
+                ox, oy, oz, dx, dy, dz, cullBackFaces, null);
+    }
+
+    /**
+     * Slab test of the ray with the box of a node, see {@link FlatNodes#intersect}.
+     *
+     * @return the entering distance, or {@link Double#POSITIVE_INFINITY} if the ray misses the box before maxDistance
+     */
+    private double intersectNode(int node, double ox, double oy, double oz,
+                                 double invDx, double invDy, double invDz, double maxDistance) {
+        return FlatNodes.intersect(tree.nodeBounds, node, ox, oy, oz, invDx, invDy, invDz, maxDistance);
+    }
+
+    /**
+     * Gives the box of a triangle, to build the hierarchy.
+     *
+     * @param triangle the index of the triangle
+     * @param box      receives the box - minX, minY, minZ, maxX, maxY, maxZ
+     */
+    private void triangleBounds(int triangle, double[] box) {
+        for (int axis = 0; axis < 3; axis++) {
+            double a = positions[3 * indices[3 * triangle] + axis];
+            double b = positions[3 * indices[3 * triangle + 1] + axis];
+            double c = positions[3 * indices[3 * triangle + 2] + axis];
+            box[axis] = Math.min(a, Math.min(b, c));
+            box[3 + axis] = Math.max(a, Math.max(b, c));
+        }
+    }
+}
@@ -1,17 +1,34 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
 import java.util.List;
 
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
 public class Tube extends RadialGeometry {
     Ray axisRay;//The direction vector of the tube
+    /**
+     * The frame of the tube for the intersections - the head of the axis and its (unit) direction
+     */
+    final double axisX, axisY, axisZ;
+    final double dirX, dirY, dirZ;
 
     public Tube(double radius, Ray axisRay) {//con
         super(radius);
         this.axisRay = axisRay;
+        Point p0 = axisRay.getP0();
+        Vector v = axisRay.getDir();
+        axisX = p0.getX();
+        axisY = p0.getY();
+        axisZ = p0.getZ();
+        dirX = v.getX();
+        dirY = v.getY();
+        dirZ = v.getZ();
     }
 
     @Override
@@ -33,8 +50,121 @@ public class Tube extends RadialGeometry {
         return axisRay;
     }
 
+    /**
+     * An infinite tube has no bounding box.
+     *
+     * @return null, since the tube is unbounded
+     */
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    public BoundingBox getBoundingBox() {
         return null;
     }
+
+    /**
+     * Computes the intersection points of the ray with the tube.
+     * A ray tangent to the tube or parallel to its axis does not intersect it.
+     *
+     * @param ray the ray to intersect with the tube
+     * @return the intersection points ordered by their distance, or null if there are none
+     */
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        double t1 = intersect(ray, 0);
+        if (t1 == Double.POSITIVE_INFINITY) return null;
+        double t2 = intersect(ray, t1);
+        return t2 == Double.POSITIVE_INFINITY ? List.of(new GeoPoint(this, ray.getPoint(t1)))
+                : List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
+    }
+
+    @Override
+    protected boolean findClosestHitHelper(Ray ray, Hit hit) {
+        return hit.update(this, intersect(ray, 0));
+    }
+
+    /**
+     * Multiplies the transparency by the tube's kT for each intersection nearer than maxDistance,
+     * without creating the intersection points.
+     *
+     * @param ray         the shadow ray
+     * @param maxDistance the maximal distance (excluded) from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the transparency below which the ray is considered blocked
+     * @return the accumulated transparency
+     */
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        for (double t = intersect(ray, 0); t < maxDistance; t = intersect(ray, t)) {
+            ktr = ktr.product(getMaterial().kT);
+            if (ktr.lowerThan(minK)) return ktr;
+        }
+        return ktr;
+    }
+
+    /**
+     * Computes the distance of the nearest intersection of the ray with the tube
+     * that is farther than a given distance.
+     * Calling it again with the returned distance gives the next intersection.
+     *
+     * @param ray         the ray to intersect with the tube
+     * @param minDistance the minimal distance (excluded) from the head of the ray
+     * @return the distance of the intersection, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    protected double intersect(Ray ray, double minDistance) {
+        Point p0 = ray.getP0();
+        Vector dir = ray.getDir();
+        double wx = p0.getX() - axisX, wy = p0.getY() - axisY, wz = p0.getZ() - axisZ;
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        return intersectBody(wx, wy, wz, dx, dy, dz, minDistance,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Computes the distance of the nearest intersection of the ray with the side of the tube
+     * that is farther than a given distance and between two heights along the axis.
+     * The ray is given relatively to the head of the axis.
+     *
+     * @param wx          the x coordinate of the ray origin relatively to the head of the axis
+     * @param wy          the y coordinate of the ray origin relatively to the head of the axis
+     * @param wz          the z coordinate of the ray origin relatively to the head of the axis
+     * @param dx          the x coordinate of the ray direction
+     * @param dy          the y coordinate of the ray direction
+     * @param dz          the z coordinate of the ray direction
+     * @param minDistance the minimal distance (excluded) from the head of the ray
+     * @param minHeight   the minimal height (excluded) along the axis
+     * @param maxHeight   the maximal height (excluded) along the axis
+     * @return the distance of the intersection, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    double intersectBody(double wx, double wy, double wz, double dx, double dy, double dz,
+                         double minDistance, double minHeight, double maxHeight) {
+        // the parts of the ray origin and direction along the axis
+        double dv = dx * dirX + dy * dirY + dz * dirZ;
+        double wv = wx * dirX + wy * dirY + wz * dirZ;
+        // |(w + t*d) - ((w + t*d) . v) v|^2 = r^2  =>  a*t^2 + 2*b*t + c = 0
+        double a = 1 - dv * dv;
+        if (isZero(a)) return Double.POSITIVE_INFINITY;//the ray is parallel to the axis
+        double b = dx * wx + dy * wy + dz * wz - dv * wv;
+        double c = wx * wx + wy * wy + wz * wz - wv * wv - radius * radius;
+        double discriminant = alignZero(b * b - a * c);
+        if (discriminant <= 0) return Double.POSITIVE_INFINITY;//the ray misses or is tangent to the tube
+        double sqrt = Math.sqrt(discriminant);
+        double t = (-b - sqrt) / a;
+        if (isAfter(t, minDistance) && isBetween(wv + t * dv, minHeight, maxHeight)) return t;
+        t = (-b + sqrt) / a;
+        if (isAfter(t, minDistance) && isBetween(wv + t * dv, minHeight, maxHeight)) return t;
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Checks whether a distance along a ray is after a given distance
+     */
+    static boolean isAfter(double t, double minDistance) {
+        return alignZero(t - minDistance) > 0;
+    }
+
+    /**
+     * Checks whether a height along the axis is strictly between two heights
+     */
+    static boolean isBetween(double height, double minHeight, double maxHeight) {
+        return alignZero(height - minHeight) > 0 && alignZero(height - maxHeight) < 0;
+    }
 }
@@ -1,6 +1,7 @@
 package lighting;
 
 import primitives.Color;
+import primitives.MutableVector;
 import primitives.Point;
 import primitives.Vector;
 
@@ -15,7 +16,7 @@ public class DirectionalLight extends Light implements LightSource {
      */
     public DirectionalLight(Color intensity, Vector direction) {
         super(intensity);
-        this.direction = direction;
+        this.direction = direction.normalize();//normalized once, so getL does not normalize it again
     }
 
     @Override
@@ -28,6 +29,11 @@ public class DirectionalLight extends Light implements LightSource {
         return this.direction.normalize();
     }
 
+    @Override
+    public MutableVector getL(Point p, MutableVector l) {
+        return l.set(direction);
+    }
+
     @Override
     public double getDistance(Point point) {
         return Double.POSITIVE_INFINITY;
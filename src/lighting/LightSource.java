@@ -1,6 +1,7 @@
 package lighting;
 
 import primitives.Color;
+import primitives.MutableVector;
 import primitives.Point;
 import primitives.Vector;
 
@@ -25,6 +26,19 @@ public interface LightSource {
      * @return The direction of the light from the specified point.
      */
     public Vector getL(Point p);
+
+    /**
+     * Computes the direction of the light from the specified point into a scratch vector, for the hot
+     * paths that must not allocate. The default implementation copies the result of {@link #getL(Point)}.
+     *
+     * @param p The point from which to evaluate the direction of the light.
+     * @param l The vector to set to the direction of the light.
+     * @return The vector l.
+     */
+    default MutableVector getL(Point p, MutableVector l) {
+        return l.set(getL(p));
+    }
+
     public double getDistance(Point point);
 }
 
@@ -1,6 +1,7 @@
 package lighting;
 
 import primitives.Color;
+import primitives.MutableVector;
 import primitives.Point;
 import primitives.Vector;
 
@@ -50,6 +51,11 @@ public class PointLight extends Light implements LightSource {
         return p.subtract(position).normalize();
     }
 
+    @Override
+    public MutableVector getL(Point p, MutableVector l) {
+        return l.setDifference(p, position).normalize();
+    }
+
     @Override
     public double getDistance(Point point) {
         return position.distance(point);
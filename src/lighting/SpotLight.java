@@ -1,6 +1,7 @@
 package lighting;
 
 import primitives.Color;
+import primitives.MutableVector;
 import primitives.Point;
 import primitives.Vector;
 
@@ -21,7 +22,7 @@ public class SpotLight extends PointLight {
 
     @Override
     public Color getIntensity(Point p) {
-        double nominator = Math.max(0, direction.dotProduct(getL(p)));
+        double nominator = Math.max(0, getL(p, new MutableVector()).dotProduct(direction));
         return super.getIntensity(p).scale(nominator);
     }
 
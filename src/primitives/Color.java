@@ -8,7 +8,7 @@ package primitives;
 public class Color {
    /** The internal fields maintain RGB components as double numbers from 0 to
     * whatever... */
-   private final Double3     rgb;
+   final Double3             rgb;
 
    /** Black color = (0,0,0) */
    public static final Color BLACK = new Color();
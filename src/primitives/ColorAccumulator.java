@@ -0,0 +1,109 @@
+package primitives;
+
+/**
+ * A mutable sum of colors for the sampling and shading loops, where adding to an immutable {@link Color}
+ * would allocate a new color and a new triad for every sample and check its components again.
+ * Each operation changes the sum in place and returns it, so a loop is written as
+ * {@code sum.addScaled(color, kr)} and the result is made once, by {@link #toColor()} or
+ * {@link #average(int)}. The added colors are valid colors and the scales are not negative,
+ * so the sum is not checked until it becomes a color.
+ */
+public class ColorAccumulator {
+    /**
+     * The RGB components of the sum
+     */
+    private double r, g, b;
+
+    /**
+     * Creates a black sum.
+     */
+    public ColorAccumulator() {
+    }
+
+    /**
+     * Creates a sum that starts from a color.
+     *
+     * @param color the first color of the sum
+     */
+    public ColorAccumulator(Color color) {
+        add(color);
+    }
+
+    /**
+     * Resets the sum to black, to reuse it for another sum.
+     *
+     * @return the sum itself
+     */
+    public ColorAccumulator reset() {
+        r = g = b = 0;
+        return this;
+    }
+
+    /**
+     * Adds a color to the sum.
+     *
+     * @param color the color to add
+     * @return the sum itself
+     */
+    public ColorAccumulator add(Color color) {
+        r += color.rgb.d1;
+        g += color.rgb.d2;
+        b += color.rgb.d3;
+        return this;
+    }
+
+    /**
+     * Adds a color scaled by a scalar per rgb to the sum, like {@code add(color.scale(k))}.
+     *
+     * @param color the color to add
+     * @param k     the scale factor per rgb
+     * @return the sum itself
+     */
+    public ColorAccumulator addScaled(Color color, Double3 k) {
+        r += color.rgb.d1 * k.d1;
+        g += color.rgb.d2 * k.d2;
+        b += color.rgb.d3 * k.d3;
+        return this;
+    }
+
+    /**
+     * Adds a color scaled by a scalar to the sum, like {@code add(color.scale(k))}.
+     *
+     * @param color the color to add
+     * @param k     the scale factor
+     * @return the sum itself
+     */
+    public ColorAccumulator addScaled(Color color, double k) {
+        r += color.rgb.d1 * k;
+        g += color.rgb.d2 * k;
+        b += color.rgb.d3 * k;
+        return this;
+    }
+
+    /**
+     * Creates the color of the sum.
+     *
+     * @return the color
+     * @throws IllegalArgumentException if a negative scale made a component of the sum negative
+     */
+    public Color toColor() {
+        return new Color(r, g, b);
+    }
+
+    /**
+     * Creates the average color of the summed samples, like {@code toColor().reduce(count)}.
+     *
+     * @param count the number of the summed samples
+     * @return the average color
+     * @throws IllegalArgumentException if the count is not positive
+     */
+    public Color average(int count) {
+        if (count < 1) throw new IllegalArgumentException("Can't average less than one sample");
+        return new Color(r / count, g / count, b / count);
+    }
+
+    @Override
+    public String toString() {
+        return "ColorAccumulator{rgb:(" + r + "," + g + "," + b + ")}";
+    }
+}
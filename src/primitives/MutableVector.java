@@ -0,0 +1,222 @@
+package primitives;
+
+import static primitives.Util.isZero;
+
+/**
+ * A mutable vector for the hot paths of the ray tracer, where the immutable {@link Vector} would allocate
+ * a new object for every operation. Each operation changes the vector in place and returns it, so a
+ * computation is written as a chain, e.g. {@code r.set(l).addScaled(n, -2 * nl).normalize()}, and one
+ * scratch vector can be reused for all the lights of a hit or all the rays of a beam.
+ * Unlike {@link Vector}, a mutable vector may be zero (e.g. before it is set).
+ * It is meant for temporary values - {@link #toVector()} creates an immutable vector to keep,
+ * which is known to be normalized if the last operation was {@link #normalize()}.
+ */
+public class MutableVector {
+    /**
+     * The coordinates of the vector
+     */
+    private double x, y, z;
+    /**
+     * Whether the vector was normalized since it was last changed
+     */
+    private boolean normalized = false;
+
+    /**
+     * Creates a zero vector.
+     */
+    public MutableVector() {
+    }
+
+    /**
+     * Creates a vector with the coordinates of a point or a vector.
+     *
+     * @param point the point or vector to copy
+     */
+    public MutableVector(Point point) {
+        set(point);
+    }
+
+    /**
+     * Sets the coordinates of the vector.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @return the vector itself
+     */
+    public MutableVector set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        normalized = false;
+        return this;
+    }
+
+    /**
+     * Sets the vector to the coordinates of a point or a vector, keeping whether the vector is normalized.
+     *
+     * @param point the point or vector to copy
+     * @return the vector itself
+     */
+    public MutableVector set(Point point) {
+        set(point.getX(), point.getY(), point.getZ());
+        normalized = point instanceof Vector vector && vector.isNormalized();
+        return this;
+    }
+
+    /**
+     * Sets the vector to the coordinates of another mutable vector.
+     *
+     * @param other the vector to copy
+     * @return the vector itself
+     */
+    public MutableVector set(MutableVector other) {
+        return set(other.x, other.y, other.z);
+    }
+
+    /**
+     * Sets the vector to the difference of two points, like {@link Point#subtract(Point)}.
+     *
+     * @param to   the point the vector goes to
+     * @param from the point the vector starts at
+     * @return the vector itself
+     */
+    public MutableVector setDifference(Point to, Point from) {
+        return set(to.getX() - from.getX(), to.getY() - from.getY(), to.getZ() - from.getZ());
+    }
+
+    /**
+     * Adds a scaled vector to the vector.
+     *
+     * @param vector the vector to add
+     * @param scale  the scale of the added vector
+     * @return the vector itself
+     */
+    public MutableVector addScaled(Vector vector, double scale) {
+        return set(x + vector.getX() * scale, y + vector.getY() * scale, z + vector.getZ() * scale);
+    }
+
+    /**
+     * Adds a scaled vector to the vector.
+     *
+     * @param vector the vector to add
+     * @param scale  the scale of the added vector
+     * @return the vector itself
+     */
+    public MutableVector addScaled(MutableVector vector, double scale) {
+        return set(x + vector.x * scale, y + vector.y * scale, z + vector.z * scale);
+    }
+
+    /**
+     * Subtracts the coordinates of a point from the vector, e.g. to turn a point that was computed
+     * in the vector into the direction to it from another point.
+     *
+     * @param point the point to subtract
+     * @return the vector itself
+     */
+    public MutableVector subtract(Point point) {
+        return set(x - point.getX(), y - point.getY(), z - point.getZ());
+    }
+
+    /**
+     * Scales the vector.
+     *
+     * @param scale the scale
+     * @return the vector itself
+     */
+    public MutableVector scale(double scale) {
+        return set(x * scale, y * scale, z * scale);
+    }
+
+    /**
+     * Sets the vector to the cross product of two vectors, like {@link Vector#crossProduct(Vector)}.
+     *
+     * @param u the first vector
+     * @param v the second vector
+     * @return the vector itself
+     */
+    public MutableVector setCrossProduct(Vector u, Vector v) {
+        return set(u.getY() * v.getZ() - u.getZ() * v.getY(),
+                u.getZ() * v.getX() - u.getX() * v.getZ(),
+                u.getX() * v.getY() - u.getY() * v.getX());
+    }
+
+    /**
+     * Normalizes the vector to a unit length, like {@link Vector#normalize()}.
+     *
+     * @return the vector itself
+     * @throws ArithmeticException if the vector is zero
+     */
+    public MutableVector normalize() {
+        double length = length();
+        if (isZero(length)) throw new ArithmeticException("Cannot normalize a zero vector");
+        set(x / length, y / length, z / length);
+        normalized = true;
+        return this;
+    }
+
+    /**
+     * Returns the dot product of the vector with another vector.
+     *
+     * @param vector the other vector
+     * @return the dot product
+     */
+    public double dotProduct(Vector vector) {
+        return x * vector.getX() + y * vector.getY() + z * vector.getZ();
+    }
+
+    /**
+     * Returns the dot product of the vector with another mutable vector.
+     *
+     * @param vector the other vector
+     * @return the dot product
+     */
+    public double dotProduct(MutableVector vector) {
+        return x * vector.x + y * vector.y + z * vector.z;
+    }
+
+    /**
+     * Returns the squared length of the vector.
+     *
+     * @return the squared length
+     */
+    public double lengthSquared() {
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * Returns the length of the vector.
+     *
+     * @return the length
+     */
+    public double length() {
+        return Math.sqrt(lengthSquared());
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    /**
+     * Creates an immutable vector with the coordinates of the vector.
+     *
+     * @return the immutable vector
+     * @throws IllegalArgumentException if the vector is zero
+     */
+    public Vector toVector() {
+        return new Vector(x, y, z, normalized);
+    }
+
+    @Override
+    public String toString() {
+        return "MutableVector{(" + x + "," + y + "," + z + ")}";
+    }
+}
@@ -1,13 +1,21 @@
 package primitives;
 
-import java.util.Objects;
+import static primitives.Util.isZero;
 
 public class Point {
     public static final Point ZERO = new Point(0,0,0);
-    final Double3 xyz;//the coordinate of the point(x,y,z)
+    /**
+     * The coordinates of the point, kept directly in the point (rather than in a {@link Double3}),
+     * so a point is a single object and reading a coordinate does not follow another reference
+     */
+    final double x, y, z;
 
+    /**
+     * Returns the coordinates of the point as a triad, created on each call.
+     * @return the coordinates (x,y,z)
+     */
     public Double3 getXyz() {
-        return xyz;
+        return new Double3(x, y, z);
     }
 
     /**
@@ -17,7 +25,9 @@ public class Point {
      * @param d3 the z-coordinate
      */
     public Point(double d1, double d2, double d3) {
-        this.xyz = new Double3(d1, d2, d3);
+        this.x = d1;
+        this.y = d2;
+        this.z = d3;
     }
 
     /**
@@ -26,7 +36,7 @@ public class Point {
      * @throws NullPointerException if the coordinate object is null
      */
     public Point(Double3 p1) {
-        this.xyz = new Double3(p1.d1, p1.d2, p1.d3);
+        this(p1.d1, p1.d2, p1.d3);
     }
 
     /**
@@ -35,7 +45,7 @@ public class Point {
      * @return a new Point object that is the result of adding the vector to this Point
      */
     public Point add(Vector vector) {
-        return new Point(this.xyz.add(vector.xyz));
+        return new Point(x + vector.x, y + vector.y, z + vector.z);
     }
 
     /**
@@ -44,7 +54,7 @@ public class Point {
      * @return a new Vector object that is the result of subtracting the specified Point from this Point
      */
     public Vector subtract(Point p1) {
-        return new Vector(this.xyz.subtract(p1.xyz));
+        return new Vector(x - p1.x, y - p1.y, z - p1.z);
     }
 
     /**
@@ -53,9 +63,7 @@ public class Point {
      * @return the squared distance between this Point and the specified Point
      */
     public double distanceSquared(Point p1) {
-        return (this.xyz.d1 - p1.xyz.d1) * (this.xyz.d1 - p1.xyz.d1) +
-                (this.xyz.d2 - p1.xyz.d2) * (this.xyz.d2 - p1.xyz.d2) +
-                (this.xyz.d3 - p1.xyz.d3) * (this.xyz.d3 - p1.xyz.d3);
+        return (x - p1.x) * (x - p1.x) + (y - p1.y) * (y - p1.y) + (z - p1.z) * (z - p1.z);
     }
 
     /**
@@ -73,22 +81,31 @@ public class Point {
 
         Point point = (Point) o;
 
-        return xyz.equals(point.xyz);
+        return equalCoordinates(point);
+    }
+
+    /**
+     * Compares the coordinates of two points up to the accuracy of {@link Util#isZero}, like {@link Double3#equals}.
+     * @param other the other point
+     * @return true if the coordinates are (almost) equal
+     */
+    boolean equalCoordinates(Point other) {
+        return isZero(x - other.x) && isZero(y - other.y) && isZero(z - other.z);
     }
 
     @Override
     public int hashCode() {
-        return xyz != null ? xyz.hashCode() : 0;
+        return (int) Math.round(x + y + z);
     }
 
     @Override
     public String toString() {
-        return "Point{" + xyz.toString() + '}';
+        return "Point{(" + x + "," + y + "," + z + ")}";
     }
 
     public double getX() {
-        return xyz.d1;
+        return x;
     }
-    public double getY() { return xyz.d2; }
-    public double getZ() { return xyz.d3; }
+    public double getY() { return y; }
+    public double getZ() { return z; }
 }
@@ -18,12 +18,14 @@ public class Ray {
     public Ray(Point head, Vector direction, Vector normal)//con and move in a given direction
     {
         this.dir = direction.normalize();
-        if (isZero(direction.dotProduct(normal))) {
+        double nd = direction.dotProduct(normal);
+        if (isZero(nd)) {
             this.p0 = head;
-        } else if (direction.dotProduct(normal) > 0)
-            this.p0 = head.add(normal.scale(DELTA));
-        else
-            this.p0 = head.add(normal.scale(-DELTA));
+        } else {// the head is moved along the normal without the intermediate vectors
+            double delta = nd > 0 ? DELTA : -DELTA;
+            this.p0 = new Point(head.getX() + normal.getX() * delta, head.getY() + normal.getY() * delta,
+                    head.getZ() + normal.getZ() * delta);
+        }
     }
 
     public Ray(Point p0, Vector dir) {//con
@@ -67,8 +69,14 @@ public class Ray {
                 '}';
     }
 
+    /**
+     * Returns the point at a distance along the ray, computed without the intermediate scaled vector.
+     *
+     * @param t the distance from the head of the ray
+     * @return the point
+     */
     public Point getPoint(double t) {
-        return p0.add(dir.scale(t));
+        return new Point(p0.getX() + dir.getX() * t, p0.getY() + dir.getY() * t, p0.getZ() + dir.getZ() * t);
     }
 
     /**
@@ -96,9 +104,10 @@ public class Ray {
         GeoPoint closestPoint = points.get(0);
         double distance = closestPoint.point.distance(p0);
         for (GeoPoint element : points) {
-            if (element.point.distance(p0) < distance) {
+            double elementDistance = element.point.distance(p0);
+            if (elementDistance < distance) {
                 closestPoint = element;
-                distance = element.point.distance(p0);
+                distance = elementDistance;
             }
         }
         return closestPoint;
@@ -1,13 +1,20 @@
 package primitives;
 
 import java.util.Objects;
+
+import static primitives.Util.isZero;
 /**
 
  Represents a vector in 3D space.
 
- Extends the Point class, with a xyz property.
+ Extends the Point class, with its x, y and z coordinates.
  */
 public class Vector extends Point{
+    /**
+     * Whether the vector is known to be of unit length - it was made by {@link #normalize()}
+     * (or from such a vector), so normalizing it again is skipped
+     */
+    private final boolean normalized;
 
     /**
 
@@ -17,8 +24,8 @@ public class Vector extends Point{
      */
     public Vector(Double3 xyz) {
         super(xyz);
-        if (xyz.equals(xyz.ZERO))
-            throw new IllegalArgumentException("The given vector is zero");
+        checkNotZero();
+        normalized = false;
     }
     /**
 
@@ -29,8 +36,32 @@ public class Vector extends Point{
      @throws IllegalArgumentException if the given vector is zero.
      */
     public Vector(double i, double i1, double i2) {
-        super(i, i1, i2);
-        if (xyz.equals(xyz.ZERO))
+        this(i, i1, i2, false);
+    }
+
+    /**
+     * Creates a vector that may be known to be of unit length.
+     *
+     * @param x          the x coordinate
+     * @param y          the y coordinate
+     * @param z          the z coordinate
+     * @param normalized true if the vector is of unit length
+     * @throws IllegalArgumentException if the given vector is zero.
+     */
+    Vector(double x, double y, double z, boolean normalized) {
+        super(x, y, z);
+        checkNotZero();
+        this.normalized = normalized;
+    }
+
+    /**
+     * Checks the coordinates directly, without the general comparison of {@link Double3#equals}
+     * that every new vector would otherwise pay for.
+     *
+     * @throws IllegalArgumentException if the vector is zero
+     */
+    private void checkNotZero() {
+        if (isZero(x) && isZero(y) && isZero(z))
             throw new IllegalArgumentException("The given vector is zero");
     }
     /**
@@ -39,9 +70,7 @@ public class Vector extends Point{
      @return the squared length of the vector.
      */
     public double lengthSquared() {
-        return this.xyz.d1 * this.xyz.d1 +
-                this.xyz.d2 * this.xyz.d2 +
-                this.xyz.d3 * this.xyz.d3;
+        return x * x + y * y + z * z;
     }
     /**
 
@@ -61,8 +90,7 @@ public class Vector extends Point{
      */
     @Override
     public Vector add(Vector vector) {
-        Vector v1 = new Vector(this.xyz.add(vector.xyz));
-        return v1;
+        return new Vector(x + vector.x, y + vector.y, z + vector.z);
     }
     /**
 
@@ -72,8 +100,8 @@ public class Vector extends Point{
      @throws IllegalArgumentException if the scalar is zero.
      */
     public Vector scale(double scalar) {
-        Vector result = new Vector(xyz.scale(scalar));
-        return result;
+        // flipping a unit vector keeps it of unit length
+        return new Vector(x * scalar, y * scalar, z * scalar, normalized && (scalar == 1 || scalar == -1));
     }
     /**
 
@@ -83,8 +111,7 @@ public class Vector extends Point{
      @throws NullPointerException if the given vector is null.
      */
     public double dotProduct(Vector v3) {
-        double scalar = this.xyz.d1 * v3.xyz.d1 + this.xyz.d2 * v3.xyz.d2 + this.xyz.d3 * v3.xyz.d3;
-        return scalar;
+        return x * v3.x + y * v3.y + z * v3.z;
     }
 /**
 
@@ -98,11 +125,11 @@ public class Vector extends Point{
             throw new NullPointerException("The given vector is null");
         }
         Vector result = new Vector(
-                this.xyz.d2 * v2.xyz.d3 - this.xyz.d3 * v2.xyz.d2,
-                this.xyz.d3 * v2.xyz.d1 - this.xyz.d1 * v2.xyz.d3,
-                this.xyz.d1 * v2.xyz.d2 - this.xyz.d2 * v2.xyz.d1
+                y * v2.z - z * v2.y,
+                z * v2.x - x * v2.z,
+                x * v2.y - y * v2.x
         );
-        if (result.xyz.equals(xyz.ZERO))
+        if (result.equalCoordinates(ZERO))
             throw new ArithmeticException("The normal vector is zero");
         return result;
     }
@@ -111,18 +138,31 @@ public class Vector extends Point{
     /**
      Returns the normalized vector of this vector,
      which is a vector with the same direction but unit length.
+     A vector that is already normalized is returned as is.
      @return the normalized vector of this vector
      */
     public Vector normalize() {
+        if (normalized) return this;
         double length = this.length();
 
         Vector normalizedVector = new Vector(
-                this.xyz.d1 / length,
-                this.xyz.d2 / length,
-                this.xyz.d3 / length
+                x / length,
+                y / length,
+                z / length,
+                true
         );
         return normalizedVector;
     }
+
+    /**
+     * Returns whether the vector is known to be of unit length, i.e. it was made by {@link #normalize()}.
+     * A vector that was made of unit-length coordinates by a constructor is not known to be normalized.
+     *
+     * @return true if the vector is known to be normalized
+     */
+    public boolean isNormalized() {
+        return normalized;
+    }
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -130,16 +170,16 @@ public class Vector extends Point{
 
         Vector vector = (Vector) o;
 
-        return xyz.equals(vector.xyz);
+        return equalCoordinates(vector);
     }
     @Override
     public int hashCode() {
-        return xyz != null ? xyz.hashCode() : 0;
+        return (int) Math.round(x + y + z);
     }
     @Override
     public String toString() {
         return "Vector{" +
-                xyz.toString() +
+                "(" + x + "," + y + "," + z + ")" +
                 '}';
     }
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package renderer;
 
+import geometries.Frustum;
+import geometries.Geometries;
+import geometries.Intersectable.Hit;
 import primitives.Color;
+import primitives.ColorAccumulator;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -8,6 +12,7 @@ import primitives.Vector;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.awt.Color.RED;
 import static java.awt.Color.YELLOW;
@@ -37,6 +42,24 @@ public class Camera {
     private int numberOfRays = 1;
     private boolean adaptive = false;
     private int threadsCount = 0;
+    /**
+     * The side of the square tiles of pixels whose primary rays are traced as one packet, 1 for single rays
+     */
+    private int packetSize = 1;
+    /**
+     * Whether the geometries are culled by the frustum of each tile before its primary rays are traced
+     */
+    private boolean frustumCulling = false;
+    /**
+     * Whether the primary visibility of the polygons is resolved by rasterizing them
+     */
+    private boolean rasterization = false;
+    /**
+     * The rasterized polygons of the image and the rest of the geometries, which are traced,
+     * while an image is rendered with rasterization (null otherwise)
+     */
+    private Rasterizer rasterizer = null;
+    private Geometries traced = null;
     /**
      * Pixel manager for supporting:
      * <ul>
@@ -106,6 +129,51 @@ public class Camera {
         return this;
     }
 
+    /**
+     * Sets the size of the ray packets: the image is rendered in square tiles of size x size pixels,
+     * and the primary rays of a tile traverse the scene together (see {@link RayTracerBase#traceRays}).
+     * Adjacent primary rays are coherent, so the packet shares the fetching and the culling of the nodes
+     * of the scene's hierarchy. Packets are used only with a single ray per pixel.
+     *
+     * @param packetSize the side of a tile in pixels (e.g. 4 or 8), 1 to trace the rays one by one
+     * @return the Camera object
+     */
+    public Camera setPacketSize(int packetSize) {
+        if (packetSize < 1)
+            throw new IllegalArgumentException("The packet size must be >= 1");
+        this.packetSize = packetSize;
+        return this;
+    }
+
+    /**
+     * Turns on culling the geometries by the frustum of each tile: before the primary rays of a tile are
+     * traced, the geometries whose boxes are out of the pyramid from the camera through the tile are dropped,
+     * so the rays intersect only a short list of candidates (see {@link geometries.Geometries#cull}).
+     * The culling works on the tiles of the packets, see {@link #setPacketSize(int)}.
+     *
+     * @param frustumCulling true to cull the geometries of each tile
+     * @return the Camera object
+     */
+    public Camera setFrustumCulling(boolean frustumCulling) {
+        this.frustumCulling = frustumCulling;
+        return this;
+    }
+
+    /**
+     * Turns on the hybrid rendering of the primary rays: the polygons and triangles of the scene are
+     * rasterized first into a buffer of the nearest polygon and its distance for each pixel, and only the
+     * other geometries are traced, with the ray of each pixel stopping at the distance of its polygon.
+     * The shading (lights, shadows, reflections and refractions) starts from the nearest hit and is traced
+     * in the whole scene. It is used only with a single ray per pixel, instead of the packets.
+     *
+     * @param rasterization true to rasterize the polygons
+     * @return the Camera object
+     */
+    public Camera setRasterization(boolean rasterization) {
+        this.rasterization = rasterization;
+        return this;
+    }
+
     /**
      * Sets the distance between the camera and the view plane.
      */
@@ -232,11 +300,47 @@ public class Camera {
      * @return The computed color for the pixel by tracing the ray.
      */
     private void castRay(int nX, int nY, int col, int row) {
-        imageWriter.writePixel(col, row, rayTracer.traceRay(constructRay(nX, nY, col, row)));
+        Ray ray = constructRay(nX, nY, col, row);
+        if (rasterizer == null) imageWriter.writePixel(col, row, rayTracer.traceRay(ray));
+        else {// the traced geometries may be nearer than the rasterized polygon of the pixel
+            Hit hit = rasterizer.getHit(ray, col, row);
+            Hit tracedHit = traced.findClosestHit(ray, hit == null ? Double.POSITIVE_INFINITY : hit.getDistance());
+            imageWriter.writePixel(col, row, rayTracer.traceRay(ray, tracedHit == null ? hit : tracedHit));
+        }
         pixelManager.pixelDone();
     }
 
 
+    /**
+     * Casts the primary rays of a tile of pixels as one packet, and writes the colors of the pixels.
+     * The tiles on the right and bottom edges of the image are cut to it.
+     *
+     * @param nX   The number of pixels in the x-axis of the view plane grid.
+     * @param nY   The number of pixels in the y-axis of the view plane grid.
+     * @param tile The index of the tile, row after row of tiles.
+     */
+    private void castPacket(int nX, int nY, int tile) {
+        int tilesX = (nX + packetSize - 1) / packetSize;
+        int col = tile % tilesX * packetSize, row = tile / tilesX * packetSize;
+        int width = Math.min(packetSize, nX - col), height = Math.min(packetSize, nY - row);
+        Ray[] rays = new Ray[width * height];
+        for (int i = 0; i < height; i++)
+            for (int j = 0; j < width; j++)
+                rays[i * width + j] = constructRay(nX, nY, col + j, row + i);
+        Color[] colors;
+        if (frustumCulling) {// the pyramid from the camera through the outer edges of the tile's pixels
+            double left = col - 0.5, right = col + width - 0.5, top = row - 0.5, bottom = row + height - 0.5;
+            colors = rayTracer.traceRays(rays, new Frustum(location,
+                    getCenterOfPixel(nX, nY, left, top), getCenterOfPixel(nX, nY, right, top),
+                    getCenterOfPixel(nX, nY, right, bottom), getCenterOfPixel(nX, nY, left, bottom)));
+        } else colors = rayTracer.traceRays(rays);
+        for (int i = 0; i < height; i++)
+            for (int j = 0; j < width; j++) {
+                imageWriter.writePixel(col + j, row + i, colors[i * width + j]);
+                pixelManager.pixelDone();
+            }
+    }
+
     /**
      * Casts multiple rays through the specified pixel to compute the color by tracing each ray and performing anti-aliasing.
      *
@@ -248,13 +352,12 @@ public class Camera {
      */
     public Color castRays(int nX, int nY, int j, int i) {
         List<Ray> rays = constructRays(nX, nY, j, i);
-        Color color = Color.BLACK;
+        ColorAccumulator color = new ColorAccumulator();
 
         for (int k = 0; k < rays.size(); k++)
-            color = color.add(rayTracer.traceRay(rays.get(k)));
+            color.add(rayTracer.traceRay(rays.get(k)));
 
-        color = color.reduce(rays.size());
-        return color;
+        return color.average(rays.size());
     }
 
 
@@ -269,8 +372,18 @@ public class Camera {
         int nX = imageWriter.getNx();
         int nY = imageWriter.getNy();
         pixelManager = new PixelManager(nY, nX, 100l);
+        boolean packets = numberOfRays == 1 && packetSize > 1 && !rasterization;
+        if (numberOfRays == 1 && rasterization) {
+            rasterizer = new Rasterizer(location, vTo, vUp, vRight, width, height, distance, nX, nY);
+            traced = rasterizer.rasterize(rayTracer.scene.geometries);
+        }
+        int tiles = ((nX + packetSize - 1) / packetSize) * ((nY + packetSize - 1) / packetSize);
         if (threadsCount == 0) {
-            if (numberOfRays == 1) {
+            if (packets) {
+                for (int tile = 0; tile < tiles; tile++) {
+                    castPacket(nX, nY, tile);
+                }
+            } else if (numberOfRays == 1) {
                 for (int i = 0; i < nY; i++) {
                     for (int j = 0; j < nX; j++) {
                         castRay(nX, nY, j, i);
@@ -291,8 +404,14 @@ public class Camera {
             }
         } else { // see further... option 2
             var threads = new LinkedList<Thread>(); // list of threads
+            AtomicInteger nextTile = new AtomicInteger(); // the tiles are handed out to the threads in order
             while (threadsCount-- > 0) // add appropriate number of threads
                 threads.add(new Thread(() -> { // add a thread with its code
+                    if (packets) {
+                        for (int tile = nextTile.getAndIncrement(); tile < tiles; tile = nextTile.getAndIncrement())
+                            castPacket(nX, nY, tile);
+                        return;
+                    }
                     PixelManager.Pixel pixel; // current pixel(row,col)
                     // allocate pixel(row,col) in loop until there are no more pixels
                     while ((pixel = pixelManager.nextPixel()) != null) {
@@ -310,6 +429,8 @@ public class Camera {
             } catch (InterruptedException ignore) {
             }
         }
+        rasterizer = null;
+        traced = null;
     }
 
     /**
@@ -0,0 +1,244 @@
+package renderer;
+
+import geometries.Geometries;
+import geometries.Geometry;
+import geometries.Intersectable;
+import geometries.Intersectable.Hit;
+import geometries.Polygon;
+import geometries.Triangle;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolves the primary visibility of the planar geometries (polygons and triangles) by rasterizing them
+ * into a buffer of the nearest geometry and its distance for each pixel, instead of tracing a ray per pixel.
+ * The ray through a pixel is a linear function of the pixel's indices on the view plane, so the edges of a
+ * polygon (the planes through the camera and each edge) and the plane of the polygon are linear functions
+ * too, evaluated incrementally along each row of pixels. A pixel is covered when the ray through its center
+ * is strictly inside all the edges, like a traced ray, and its distance is the distance of that ray to the plane.
+ * The other geometries are left to be traced, see {@link #rasterize(Geometries)}.
+ */
+class Rasterizer {
+    /**
+     * The number of pixels in each row and column
+     */
+    private final int nX, nY;
+    /**
+     * The location of the camera
+     */
+    private final double ex, ey, ez;
+    /**
+     * The (unnormalized) ray through the pixel (0,0), and the steps of the ray to the next column and row
+     */
+    private final double[] origin, stepX, stepY;
+    /**
+     * The directions to the right, up and forward of the camera, and the distance of the view plane
+     */
+    private final Vector vRight, vUp, vTo;
+    private final double distance;
+    /**
+     * The size of a pixel on the view plane
+     */
+    private final double rX, rY;
+    /**
+     * The nearest rasterized geometry of each pixel (null if none) and its distance from the camera
+     */
+    private final Geometry[] geometries;
+    private final double[] depths;
+
+    /**
+     * Creates the buffers of the image of a camera.
+     *
+     * @param location the location of the camera
+     * @param vTo      the direction the camera points to
+     * @param vUp      the up direction of the camera
+     * @param vRight   the right direction of the camera
+     * @param width    the width of the view plane
+     * @param height   the height of the view plane
+     * @param distance the distance of the view plane from the camera
+     * @param nX       the number of pixels in a row
+     * @param nY       the number of pixels in a column
+     */
+    Rasterizer(Point location, Vector vTo, Vector vUp, Vector vRight,
+               double width, double height, double distance, int nX, int nY) {
+        this.nX = nX;
+        this.nY = nY;
+        ex = location.getX();
+        ey = location.getY();
+        ez = location.getZ();
+        this.vTo = vTo;
+        this.vUp = vUp;
+        this.vRight = vRight;
+        this.distance = distance;
+        rX = width / nX;
+        rY = height / nY;
+        // the center of the pixel (j,i) is at (j - (nX-1)/2) * rX to the right and (i - (nY-1)/2) * rY down
+        double x0 = -(nX - 1d) / 2d * rX, y0 = (nY - 1d) / 2d * rY;
+        origin = new double[3];
+        stepX = new double[3];
+        stepY = new double[3];
+        double[] to = {vTo.getX(), vTo.getY(), vTo.getZ()};
+        double[] right = {vRight.getX(), vRight.getY(), vRight.getZ()};
+        double[] up = {vUp.getX(), vUp.getY(), vUp.getZ()};
+        for (int k = 0; k < 3; k++) {
+            origin[k] = to[k] * distance + right[k] * x0 + up[k] * y0;
+            stepX[k] = right[k] * rX;
+            stepY[k] = -up[k] * rY;
+        }
+        geometries = new Geometry[nX * nY];
+        depths = new double[nX * nY];
+    }
+
+    /**
+     * Rasterizes the polygons of a scene (including the polygons in nested collections) and returns the
+     * geometries that are left to be traced. The rest keep the acceleration structure of the scene
+     * (see {@link Geometries#select}).
+     *
+     * @param scene the geometries of the scene
+     * @return the geometries that were not rasterized
+     */
+    Geometries rasterize(Geometries scene) {
+        Arrays.fill(geometries, null);
+        Arrays.fill(depths, Double.POSITIVE_INFINITY);
+        for (Intersectable geometry : scene.getPrimitives())
+            if (geometry instanceof Polygon polygon) rasterize(polygon);
+        return scene.select(geometry -> !(geometry instanceof Polygon));
+    }
+
+    /**
+     * Rasterizes a convex polygon into the buffers, keeping the nearer geometry of each pixel.
+     *
+     * @param polygon the polygon
+     */
+    private void rasterize(Polygon polygon) {
+        List<Point> vertices = polygon.getVertices();
+        int size = vertices.size();
+        double[] relative = new double[3 * size];//the vertices relative to the camera
+        for (int v = 0; v < size; v++) {
+            Point vertex = vertices.get(v);
+            relative[3 * v] = vertex.getX() - ex;
+            relative[3 * v + 1] = vertex.getY() - ey;
+            relative[3 * v + 2] = vertex.getZ() - ez;
+        }
+        // the plane through the camera and each edge, as a linear function of the pixel's indices
+        double[] edges = new double[3 * size];
+        for (int v = 0; v < size; v++) {
+            int a = 3 * v, b = 3 * ((v + 1) % size);
+            cross(relative, a, relative, b, edges, 3 * v);
+        }
+        // the normal of the polygon (oriented by the order of the vertices) and the plane's distance
+        double[] normal = new double[3];
+        double[] e1 = {relative[3] - relative[0], relative[4] - relative[1], relative[5] - relative[2]};
+        double[] e2 = {relative[6] - relative[0], relative[7] - relative[1], relative[8] - relative[2]};
+        cross(e1, 0, e2, 0, normal, 0);
+        double numerator = normal[0] * relative[0] + normal[1] * relative[1] + normal[2] * relative[2];
+        if (numerator == 0) return;//the camera is on the plane of the polygon, which is seen edge-on
+        boolean frontOnly = polygon instanceof Triangle triangle && triangle.isCullBackFaces();
+
+        int[] window = window(relative);
+        double[] base = new double[size + 1], dx = new double[size + 1], dy = new double[size + 1];
+        for (int e = 0; e <= size; e++) {
+            double[] plane = e < size ? edges : normal;
+            int p = e < size ? 3 * e : 0;
+            base[e] = dot(plane, p, origin);
+            dx[e] = dot(plane, p, stepX);
+            dy[e] = dot(plane, p, stepY);
+        }
+        double[] values = new double[size + 1];
+        for (int i = window[2]; i <= window[3]; i++) {
+            for (int e = 0; e <= size; e++) values[e] = base[e] + dy[e] * i + dx[e] * window[0];
+            for (int j = window[0]; j <= window[1]; j++) {
+                if (j > window[0]) for (int e = 0; e <= size; e++) values[e] += dx[e];
+                if (!inside(values, size)) continue;
+                double w = values[size];//the normal dotted with the ray through the pixel
+                if (w == 0 || (w > 0) != (numerator > 0) || frontOnly && w >= 0) continue;
+                double rx = origin[0] + stepX[0] * j + stepY[0] * i;
+                double ry = origin[1] + stepX[1] * j + stepY[1] * i;
+                double rz = origin[2] + stepX[2] * j + stepY[2] * i;
+                double depth = numerator / w * Math.sqrt(rx * rx + ry * ry + rz * rz);
+                int pixel = i * nX + j;
+                if (depth < depths[pixel]) {
+                    depths[pixel] = depth;
+                    geometries[pixel] = polygon;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a pixel is strictly inside all the edges of a polygon - on the same side of all of them.
+     *
+     * @param values the edge functions of the pixel
+     * @param size   the number of edges
+     * @return true if the pixel is inside
+     */
+    private static boolean inside(double[] values, int size) {
+        boolean positive = values[0] > 0;
+        if (values[0] == 0) return false;
+        for (int e = 1; e < size; e++)
+            if (positive ? values[e] <= 0 : values[e] >= 0) return false;
+        return true;
+    }
+
+    /**
+     * Finds the pixels that a polygon may cover - the pixels around the projections of its vertices on
+     * the view plane, or all the pixels if a vertex is not in front of the camera.
+     *
+     * @param relative the vertices relative to the camera
+     * @return the first and last columns and the first and last rows of the pixels
+     */
+    private int[] window(double[] relative) {
+        double minJ = Double.POSITIVE_INFINITY, maxJ = Double.NEGATIVE_INFINITY;
+        double minI = Double.POSITIVE_INFINITY, maxI = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < relative.length; v += 3) {
+            double x = relative[v], y = relative[v + 1], z = relative[v + 2];
+            double forward = x * vTo.getX() + y * vTo.getY() + z * vTo.getZ();
+            if (forward <= 0) return new int[]{0, nX - 1, 0, nY - 1};
+            double scale = distance / forward;
+            double j = (x * vRight.getX() + y * vRight.getY() + z * vRight.getZ()) * scale / rX + (nX - 1d) / 2d;
+            double i = (nY - 1d) / 2d - (x * vUp.getX() + y * vUp.getY() + z * vUp.getZ()) * scale / rY;
+            minJ = Math.min(minJ, j);
+            maxJ = Math.max(maxJ, j);
+            minI = Math.min(minI, i);
+            maxI = Math.max(maxI, i);
+        }
+        return new int[]{(int) Math.max(0, Math.floor(minJ)), (int) Math.min(nX - 1, Math.ceil(maxJ)),
+                (int) Math.max(0, Math.floor(minI)), (int) Math.min(nY - 1, Math.ceil(maxI))};
+    }
+
+    /**
+     * Returns the nearest rasterized hit of the ray through a pixel.
+     *
+     * @param ray the ray through the center of the pixel
+     * @param col the column of the pixel
+     * @param row the row of the pixel
+     * @return the hit, or null if no polygon covers the pixel
+     */
+    Hit getHit(Ray ray, int col, int row) {
+        int pixel = row * nX + col;
+        if (geometries[pixel] == null) return null;
+        Hit hit = new Hit(ray, Double.POSITIVE_INFINITY);
+        hit.update(geometries[pixel], depths[pixel]);
+        return hit;
+    }
+
+    /**
+     * Cross product of two vectors kept in arrays, into a third array
+     */
+    private static void cross(double[] u, int a, double[] v, int b, double[] result, int r) {
+        result[r] = u[a + 1] * v[b + 2] - u[a + 2] * v[b + 1];
+        result[r + 1] = u[a + 2] * v[b] - u[a] * v[b + 2];
+        result[r + 2] = u[a] * v[b + 1] - u[a + 1] * v[b];
+    }
+
+    /**
+     * Dot product of a vector kept in an array with a vector of 3 coordinates
+     */
+    private static double dot(double[] u, int a, double[] v) {
+        return u[a] * v[0] + u[a + 1] * v[1] + u[a + 2] * v[2];
+    }
+}
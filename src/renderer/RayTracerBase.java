@@ -1,5 +1,7 @@
 package renderer;
 
+import geometries.Frustum;
+import geometries.Intersectable.Hit;
 import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
@@ -32,6 +34,43 @@ public abstract class RayTracerBase {
      */
     public abstract Color traceRay(Ray ray);
 
+    /**
+     * Computes the color of a ray whose closest hit was already found, e.g. by rasterization.
+     * The default implementation traces the ray again.
+     *
+     * @param ray the ray
+     * @param hit the closest hit of the ray, null if the ray hits nothing
+     * @return the color of the ray
+     */
+    public Color traceRay(Ray ray, Hit hit) {
+        return traceRay(ray);
+    }
+
+    /**
+     * Computes the colors of a group of coherent rays, like the rays of a tile of adjacent pixels.
+     * The default implementation traces the rays one by one.
+     *
+     * @param rays the rays to trace
+     * @return the color of each ray
+     */
+    public Color[] traceRays(Ray[] rays) {
+        Color[] colors = new Color[rays.length];
+        for (int i = 0; i < rays.length; i++) colors[i] = traceRay(rays[i]);
+        return colors;
+    }
+
+    /**
+     * Computes the colors of the primary rays of a tile, which are all inside a frustum from the camera.
+     * The default implementation ignores the frustum.
+     *
+     * @param rays    the rays to trace
+     * @param frustum the frustum that contains all the rays
+     * @return the color of each ray
+     */
+    public Color[] traceRays(Ray[] rays, Frustum frustum) {
+        return traceRays(rays);
+    }
+
     /**
      * Checks the color of the pixel with the help of individual rays and averages between
      * them and only if necessary continues to send beams of rays in recursion
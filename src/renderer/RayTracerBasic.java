@@ -3,7 +3,10 @@ package renderer;
 import lighting.LightSource;
 import primitives.*;
 import scene.Scene;
-import geometries.Intersectable.GeoPoint;
+import geometries.Intersectable.Hit;
+import geometries.Frustum;
+import geometries.Geometries;
+import geometries.RayPacket;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -38,32 +41,102 @@ public class RayTracerBasic extends RayTracerBase {
         this.distanceGrid = distanceGrid;
     }
 
+    /**
+     * Builds the bounding volume hierarchy of the scene's geometries, traversed either through binary
+     * nodes or through wide nodes that test the boxes of 4 children in one loop,
+     * so the throughput of the two can be compared on the host.
+     *
+     * @param wide true for wide nodes, false for binary ones
+     * @return the ray tracer itself
+     */
+    public RayTracerBasic setWideBVH(boolean wide) {
+        scene.geometries.buildBVH(wide);
+        return this;
+    }
+
     /**
      * Finds the closest intersection between a ray and the geometries in the scene.
      *
      * @param ray The ray to find the closest intersection with.
-     * @return The closest intersection point as a GeoPoint object.
+     * @return The closest hit, whose point and normal are computed only when used, or null if there is none.
      */
-    private GeoPoint findClosestIntersection(Ray ray) {
-        return ray.findClosestGeoPoint(scene.geometries.findGeoIntersections(ray));
+    private Hit findClosestIntersection(Ray ray) {
+        return scene.geometries.findClosestHit(ray);
     }
 
 
     @Override
     public Color traceRay(Ray ray) {
-        GeoPoint closestPoint = findClosestIntersection(ray);
-        if (closestPoint == null) return scene.background;
-        return calcColor(closestPoint, ray);
+        Hit closestHit = findClosestIntersection(ray);
+        if (closestHit == null) return scene.background;
+        return calcColor(closestHit, ray);
+    }
+
+    /**
+     * Shades the hit that was already found, or returns the background if there is none.
+     *
+     * @param ray the ray
+     * @param hit the closest hit of the ray, null if the ray hits nothing
+     * @return the color of the ray
+     */
+    @Override
+    public Color traceRay(Ray ray, Hit hit) {
+        return hit == null ? scene.background : calcColor(hit, ray);
+    }
+
+    /**
+     * Traces the rays as one packet, which finds the closest hits of all of them in one traversal
+     * of the scene's hierarchy, and then computes the color of each hit.
+     *
+     * @param rays the rays to trace
+     * @return the color of each ray
+     */
+    @Override
+    public Color[] traceRays(Ray[] rays) {
+        return traceRays(rays, scene.geometries);
+    }
+
+    /**
+     * Traces the rays of a tile as one packet against just the geometries that may be inside its frustum
+     * (see {@link Geometries#cull}). The rays reflected and refracted from the hits, and the shadow rays,
+     * leave the frustum, so they are traced against the whole scene.
+     *
+     * @param rays    the rays to trace
+     * @param frustum the frustum that contains all the rays
+     * @return the color of each ray
+     */
+    @Override
+    public Color[] traceRays(Ray[] rays, Frustum frustum) {
+        return traceRays(rays, scene.geometries.cull(frustum));
+    }
+
+    /**
+     * Finds the closest hits of the rays as one packet among the given geometries,
+     * and then computes the color of each hit in the whole scene.
+     *
+     * @param rays       the rays to trace
+     * @param geometries the geometries the rays may hit
+     * @return the color of each ray
+     */
+    private Color[] traceRays(Ray[] rays, Geometries geometries) {
+        RayPacket packet = new RayPacket(rays);
+        geometries.findClosestHits(packet);
+        Color[] colors = new Color[rays.length];
+        for (int i = 0; i < rays.length; i++) {
+            Hit hit = packet.getHit(i);
+            colors[i] = hit == null ? scene.background : calcColor(hit, rays[i]);
+        }
+        return colors;
     }
 
     /**
      * Computes the color of the intersection point using the Phong reflection model.
      *
-     * @param point the intersection point
+     * @param hit the intersection point
      * @return the color of the intersection point.
      */
-    private Color calcColor(GeoPoint point, Ray ray) {
-        return calcColor(point, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K)
+    private Color calcColor(Hit hit, Ray ray) {
+        return calcColor(hit, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K)
                 .add(scene.ambientLight.getIntensity());
 
     }
@@ -71,55 +144,54 @@ public class RayTracerBasic extends RayTracerBase {
     /**
      * Calculates the color at a given geometric point based on the reflection and refraction effects.
      *
-     * @param gp    The geometric point to calculate the color for.
+     * @param hit   The hit to calculate the color for.
      * @param ray   The incident ray at the geometric point.
      * @param level The recursion level.
      * @param k     The attenuation factor for the color calculation.
      * @return The calculated color at the given geometric point.
      */
-    private Color calcColor(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(gp, ray, k);
-        return 1 == level ? color : color.add(calcGlobalEffects(gp, ray, level, k));
+    private Color calcColor(Hit hit, Ray ray, int level, Double3 k) {
+        Color color = calcLocalEffects(hit, ray, k);
+        return 1 == level ? color : color.add(calcGlobalEffects(hit, ray, level, k));
     }
 
     /**
      * Calculates the global reflection and refraction effects for a given geometric point.
      *
-     * @param gp    The geometric point to calculate the effects for.
+     * @param hit   The hit to calculate the effects for.
      * @param ray   The incident ray at the geometric point.
      * @param level The recursion level.
      * @param k     The attenuation factor for the effects calculation.
      * @return The accumulated color based on the global effects.
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
+    private Color calcGlobalEffects(Hit hit, Ray ray, int level, Double3 k) {
         Color color = Color.BLACK;
-        Material material = gp.geometry.getMaterial();
+        Material material = hit.getMaterial();
         Double3 kr = material.kR;
         Double3 kkr = k.product(kr); //in each recursive iteration the impact of the reflection decreases
-        Vector n = gp.geometry.getNormal(gp.point);
         if (!kkr.lowerThan(MIN_CALC_COLOR_K)) {
-            List<Ray> reflectedRays = constructReflectedRays(gp, ray, material.Glossy);
-            Color tempColor1 = Color.BLACK;
+            List<Ray> reflectedRays = constructReflectedRays(hit, ray, material.Glossy);
+            ColorAccumulator sum = new ColorAccumulator(); // the samples are summed without a color per sample
             for (Ray reflectedRay : reflectedRays) {
-                GeoPoint reflectedPoint = findClosestIntersection(reflectedRay);
-                tempColor1 = tempColor1.add(reflectedPoint == null ?
-                        Color.BLACK : calcColor(reflectedPoint, reflectedRay, level - 1, kkr).scale(kr));
+                Hit reflectedPoint = findClosestIntersection(reflectedRay);
+                if (reflectedPoint != null)
+                    sum.addScaled(calcColor(reflectedPoint, reflectedRay, level - 1, kkr), kr);
             }
 
-            color = color.add(tempColor1.reduce(reflectedRays.size()));
+            color = color.add(sum.average(reflectedRays.size()));
         }
         Double3 kt = material.kT;
         Double3 kkt = k.product(kt); //in each recursive iteration the impact of the refraction decreases
         if (!kkt.lowerThan(MIN_CALC_COLOR_K)) {
-            List<Ray> refractedRays = constructRefractedRays(gp, ray, n);
-            Color tempColor2 = Color.BLACK;
+            List<Ray> refractedRays = constructRefractedRays(hit, ray);
+            ColorAccumulator sum = new ColorAccumulator();
             for (Ray refractedRay : refractedRays) {
-                GeoPoint refractedPoint = findClosestIntersection(refractedRay);
-                tempColor2 = tempColor2.add(refractedPoint == null ?
-                        Color.BLACK : calcColor(refractedPoint, refractedRay, level - 1, kkt).scale(kt));
+                Hit refractedPoint = findClosestIntersection(refractedRay);
+                if (refractedPoint != null)
+                    sum.addScaled(calcColor(refractedPoint, refractedRay, level - 1, kkt), kt);
             }
 
-            color = color.add(tempColor2.reduce(refractedRays.size()));
+            color = color.add(sum.average(refractedRays.size()));
         }
         return color;
     }
@@ -130,30 +202,33 @@ public class RayTracerBasic extends RayTracerBase {
      * the emission of the geometry, the direction of the ray, the normal of the geometry, and
      * the scene's lights. Returns the resulting color.
      *
-     * @param gp  The geometry point to calculate the local effects for.
+     * @param hit The hit to calculate the local effects for.
      * @param ray The ray to calculate the local effects for.
      * @return The resulting color after calculating the local effects.
      */
-    private Color calcLocalEffects(GeoPoint gp, Ray ray, Double3 k) {
-        Color color = gp.geometry.getEmission();
+    private Color calcLocalEffects(Hit hit, Ray ray, Double3 k) {
+        Color emission = hit.getGeometry().getEmission();
         Vector v = ray.getDir();
-        Vector n = gp.geometry.getNormal(gp.point);
+        Vector n = hit.getNormal();
         double nv = alignZero(n.dotProduct(v));
-        if (nv == 0) return color;
-        Material mat = gp.geometry.getMaterial();
+        if (nv == 0) return emission;
+        Material mat = hit.getMaterial();
+        Point point = hit.getPoint();
+        // scratch vectors for the direction of each light and its reflection, reused for all the lights
+        MutableVector l = new MutableVector(), r = new MutableVector();
+        ColorAccumulator color = new ColorAccumulator(emission);
         for (LightSource lightSource : scene.lights) {
-            Vector l = lightSource.getL(gp.point);
-            double nl = alignZero(n.dotProduct(l));
+            lightSource.getL(point, l);
+            double nl = alignZero(l.dotProduct(n));
             if (nl * nv > 0) { // sign(nl) == sing(nv)
-                Double3 ktr = transparency(gp, lightSource, l, n);
+                Double3 ktr = transparency(point, lightSource, l, n);
                 if (!(ktr.product(k).lowerThan(MIN_CALC_COLOR_K))) {
-                    Color iL = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(iL.scale(calcDiffusive(mat, nl)),
-                            iL.scale(calcSpecular(mat, n, l, nl, v)));
+                    Color iL = lightSource.getIntensity(point).scale(ktr);
+                    color.addScaled(iL, calcDiffusive(mat, nl)).addScaled(iL, calcSpecular(mat, n, l, nl, v, r));
                 }
             }
         }
-        return color;
+        return color.toColor();
     }
 
     /**
@@ -176,52 +251,46 @@ public class RayTracerBasic extends RayTracerBase {
      * @param l        The direction of the light.
      * @param nl       The normal-lights angle.
      * @param v        The viewer direction.
+     * @param r        A scratch vector for the direction of the reflected light.
      * @return The calculated specular reflection.
      */
-    private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
-        Vector r = l.subtract(n.scale(nl).scale(2)).normalize();
-        return material.kS.scale(Math.pow(Math.max(0, v.dotProduct(r) * (-1)), material.nShininess));
+    private Double3 calcSpecular(Material material, Vector n, MutableVector l, double nl, Vector v, MutableVector r) {
+        r.set(l).addScaled(n, -2 * nl);//the reflection of the unit vector l is a unit vector
+        return material.kS.scale(Math.pow(Math.max(0, r.dotProduct(v) * (-1)), material.nShininess));
     }
 
     /**
      * Calculates the transparency factor between a geometric point and a light source.
      *
-     * @param gp    The geometric point to calculate the transparency for.
+     * @param point The point to calculate the transparency for.
      * @param light The light source.
      * @param l     The direction vector from the point to the light source.
      * @param n     The normal vector at the point.
      * @return The transparency factor between the geometric point and the light source.
      */
-    private Double3 transparency(GeoPoint gp, LightSource light, Vector l, Vector n) {
-        Vector lightDirection = l.scale(-1); // from point to light source
-        Ray lightRay = new Ray(gp.point, lightDirection, n);
-        Point point = lightRay.getP0();
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay);
-        if (intersections == null)
-            return Double3.ONE;
-        Double3 ktr = Double3.ONE;
-        for (GeoPoint element : intersections) {
-            if (light.getDistance(point) > point.distance(element.point))
-                ktr = ktr.product(element.geometry.getMaterial().kT);
-        }
-        return ktr;
+    private Double3 transparency(Point point, LightSource light, MutableVector l, Vector n) {
+        Vector lightDirection = l.toVector().scale(-1); // from point to light source, still normalized
+        Ray lightRay = new Ray(point, lightDirection, n);
+        // only the geometries between the point and the light source are taken into account,
+        // and the search stops as soon as the light is blocked
+        return scene.geometries.findTransparency(lightRay, light.getDistance(lightRay.getP0()), MIN_CALC_COLOR_K);
     }
 
     /**
      * Produces a reflection bean that starts from
      * the point where the ray struck from the camera and goes diagonally to the point
      *
-     * @param geoPoint the point where the ray hit from the camera
-     * @param ray      the ray from the camera
+     * @param hit the point where the ray hit from the camera
+     * @param ray the ray from the camera
      * @return a reflection ray
      */
-    private List<Ray> constructReflectedRays(GeoPoint geoPoint, Ray ray, double Glossy) {
+    private List<Ray> constructReflectedRays(Hit hit, Ray ray, double Glossy) {
         Vector v = ray.getDir();
-        Vector n = geoPoint.geometry.getNormal(geoPoint.point);
+        Vector n = hit.getNormal();
         double nv = alignZero(v.dotProduct(n));
-        Vector r = v.subtract(n.scale(2d * nv)).normalize();
+        Vector r = new MutableVector(v).addScaled(n, -2d * nv).normalize().toVector();
 
-        return raysGrid(new Ray(geoPoint.point, r, n), 1, Glossy, n);
+        return raysGrid(new Ray(hit.getPoint(), r, n), 1, Glossy, n);
     }
 
     /**
@@ -229,12 +298,13 @@ public class RayTracerBasic extends RayTracerBase {
      * the point where the ray hit from the camera and
      * goes in the direction like the original ray
      *
-     * @param geoPoint the point where the ray hit from the camera
-     * @param inRay    the ray from the camera
+     * @param hit   the point where the ray hit from the camera
+     * @param inRay the ray from the camera
      * @return transparency ray
      */
-    private List<Ray> constructRefractedRays(GeoPoint geoPoint, Ray inRay, Vector n) {
-        return raysGrid(new Ray(geoPoint.point, inRay.getDir(), n), -1, geoPoint.geometry.getMaterial().Glossy, n);
+    private List<Ray> constructRefractedRays(Hit hit, Ray inRay) {
+        Vector n = hit.getNormal();
+        return raysGrid(new Ray(hit.getPoint(), inRay.getDir(), n), -1, hit.getMaterial().Glossy, n);
     }
 
     /**
@@ -268,20 +338,18 @@ public class RayTracerBasic extends RayTracerBase {
         double step = glossy / sizeGrid;
         Point pij = pc.add(vRight.scale(numOfRowCol / 2 * -step)).add(Vup.scale(numOfRowCol / 2 * -step));
 
-        ///////4. build the grid of rays
-        Vector tempRayVector;
-        Point PijHelp;
+        ///////4. build the grid of rays, each direction computed in one scratch vector
+        MutableVector tempRayVector = new MutableVector();
         List<Ray> rays = new ArrayList<>();
         Point p0 = ray.getP0();
         rays.add(ray);
         for (int i = 1; i < numOfRowCol; i++) {
             for (int j = 1; j < numOfRowCol; j++) {
-                PijHelp = pij.add(vRight.scale(i * step)).add(Vup.scale(j * step));
-                tempRayVector = PijHelp.subtract(p0);
-                if (direction == 1 && n.dotProduct(tempRayVector) < 0) //refraction
-                    rays.add(new Ray(p0, tempRayVector));
-                if (direction == -1 && n.dotProduct(tempRayVector) > 0) //reflection
-                    rays.add(new Ray(p0, tempRayVector));
+                tempRayVector.set(pij).addScaled(vRight, i * step).addScaled(Vup, j * step).subtract(p0);
+                if (direction == 1 && tempRayVector.dotProduct(n) < 0) //refraction
+                    rays.add(new Ray(p0, tempRayVector.toVector()));
+                if (direction == -1 && tempRayVector.dotProduct(n) > 0) //reflection
+                    rays.add(new Ray(p0, tempRayVector.toVector()));
             }
         }
 
@@ -327,11 +395,11 @@ public class RayTracerBasic extends RayTracerBase {
             return tempColor;
 
         /////5. for each of the 4 parts of the grid - continue to the next iteration of the recursion
-        tempColor = Color.BLACK;
+        ColorAccumulator sum = new ColorAccumulator();
         for (Point center : nextCenterPList) {
-            tempColor = tempColor.add(AdaptiveSuperSamplingHelper(center, Width / 2, Height / 2, minWidth, minHeight, cameraLoc, vRight, Vup, cornersList));
+            sum.add(AdaptiveSuperSamplingHelper(center, Width / 2, Height / 2, minWidth, minHeight, cameraLoc, vRight, Vup, cornersList));
         }
-        return tempColor.reduce(nextCenterPList.size());
+        return sum.average(nextCenterPList.size());
     }
 
     /**
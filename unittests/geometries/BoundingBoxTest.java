@@ -0,0 +1,64 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing geometries.BoundingBox
+ *
+ * @author Shilo and Aviad
+ */
+class BoundingBoxTest {
+    private final BoundingBox box = new BoundingBox(0, 0, 0, 2, 2, 2);
+
+    /**
+     * Test method for {@link geometries.BoundingBox#intersect(Ray, double)}.
+     */
+    @Test
+    void testIntersect() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the box
+        assertEquals(1, box.intersect(new Ray(new Point(-1, 1, 1), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                0.00001, "Wrong entering distance");
+        // TC02: Ray misses the box
+        assertEquals(Double.POSITIVE_INFINITY,
+                box.intersect(new Ray(new Point(-1, 3, 1), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "Ray out of the box");
+        // TC03: Ray starts inside the box
+        assertEquals(0, box.intersect(new Ray(new Point(1, 1, 1), new Vector(1, 1, 0)), Double.POSITIVE_INFINITY),
+                0.00001, "Ray starts inside the box");
+        // TC04: Ray starts after the box
+        assertEquals(Double.POSITIVE_INFINITY,
+                box.intersect(new Ray(new Point(3, 1, 1), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "Ray starts after the box");
+        // TC05: The box is beyond the maximal distance
+        assertEquals(Double.POSITIVE_INFINITY,
+                box.intersect(new Ray(new Point(-1, 1, 1), new Vector(1, 0, 0)), 0.5),
+                "The box is beyond the maximal distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray is parallel to a face and starts on its plane
+        assertEquals(1, box.intersect(new Ray(new Point(-1, 0, 1), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                0.00001, "Ray on the plane of a face");
+        // TC12: Flat box
+        BoundingBox flat = new BoundingBox(0, 0, 1, 2, 2, 1);
+        assertEquals(2, flat.intersect(new Ray(new Point(1, 1, 3), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY),
+                0.00001, "Ray crosses a flat box");
+    }
+
+    /**
+     * Test method for {@link geometries.BoundingBox#union(BoundingBox)}.
+     */
+    @Test
+    void testUnion() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Two separated boxes
+        BoundingBox result = box.union(new BoundingBox(3, -1, 1, 4, 1, 5));
+        assertEquals(new Point(0, -1, 0), result.getMin(), "Wrong minimal corner of the union");
+        assertEquals(new Point(4, 2, 5), result.getMax(), "Wrong maximal corner of the union");
+    }
+}
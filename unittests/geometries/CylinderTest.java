@@ -5,6 +5,8 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -66,4 +68,60 @@ class CylinderTest {
         assertEquals(new Vector(0, 0, 1), result,
                 "getnormal() dose not work when the point is in the middle of the upper base");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Cylinder#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Cylinder along the z axis
+        BoundingBox box = new Cylinder(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)), 2).getBoundingBox();
+        assertEquals(new Point(-1, -1, 0), box.getMin(), "Wrong minimal corner of the cylinder's box");
+        assertEquals(new Point(1, 1, 2), box.getMax(), "Wrong maximal corner of the cylinder's box");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Infinite tube is unbounded
+        assertNull(new Tube(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1))).getBoundingBox(),
+                "Tube must be unbounded");
+    }
+
+    /**
+     * Test method for {@link geometries.Cylinder#findIntersections(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        Cylinder cyl = new Cylinder(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)), 2);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the side twice (2 points)
+        assertEquals(List.of(new Point(-1, 0, 1), new Point(1, 0, 1)),
+                cyl.findIntersections(new Ray(new Point(-2, 0, 1), new Vector(1, 0, 0))),
+                "Ray crosses the side of the cylinder");
+        // TC02: Ray crosses the lower base and the side (2 points)
+        assertEquals(List.of(new Point(0, 0, 0), new Point(1, 0, 1)),
+                cyl.findIntersections(new Ray(new Point(-1, 0, -1), new Vector(1, 0, 1))),
+                "Ray crosses the base and the side of the cylinder");
+        // TC03: Ray crosses both bases (2 points)
+        assertEquals(List.of(new Point(0.5, 0, 0), new Point(0.5, 0, 2)),
+                cyl.findIntersections(new Ray(new Point(0.5, 0, -1), new Vector(0, 0, 1))),
+                "Ray crosses both bases of the cylinder");
+        // TC04: Ray crosses the infinite tube beyond the cylinder (0 points)
+        assertNull(cyl.findIntersections(new Ray(new Point(-2, 0, 5), new Vector(1, 0, 0))),
+                "Ray crosses the tube beyond the cylinder");
+        // TC05: Ray starts inside the cylinder (1 point)
+        assertEquals(List.of(new Point(0, 0, 2)),
+                cyl.findIntersections(new Ray(new Point(0, 0, 1), new Vector(0, 0, 1))),
+                "Ray from inside the cylinder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray through the rims of the bases (0 points)
+        assertNull(cyl.findIntersections(new Ray(new Point(-1, 0, -1), new Vector(1, 0, 0.5))),
+                "Ray through the rims of the cylinder");
+        // TC12: Ray in the plane of a base (0 points)
+        assertNull(cyl.findIntersections(new Ray(new Point(-2, 0, 2), new Vector(1, 0, 0))),
+                "Ray in the plane of a base");
+        // TC13: The normal at a point on a base computed by the intersection
+        Point p = cyl.findIntersections(new Ray(new Point(0.3, 0.2, 3), new Vector(0, 0.1, -1))).get(0);
+        assertEquals(new Vector(0, 0, 1), cyl.getNormal(p), "Wrong normal at the intersection with a base");
+    }
+}
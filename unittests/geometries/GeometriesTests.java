@@ -1,6 +1,8 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -46,4 +48,409 @@ class GeometriesTests {
         assertEquals(5, result.size(), "dose not work when all the shapes are intersected");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Geometries#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        Geometries inner = new Geometries(new Sphere(1, new Point(0, 0, 0)));
+        Geometries outer = new Geometries(inner);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A geometry added to a nested collection grows the box of the outer collection
+        inner.add(new Sphere(1, new Point(10, 0, 0)));
+        assertEquals(new BoundingBox(-1, -1, -1, 11, 1, 1), outer.getBoundingBox(), "Wrong box after a nested add");
+        Ray ray = new Ray(new Point(10, 0, 5), new Vector(0, 0, -1));
+        assertEquals(2, outer.findIntersections(ray).size(), "The outer collection misses the added sphere");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: An unbounded geometry added to a nested collection makes the outer collection unbounded
+        inner.add(new Plane(new Point(0, 0, -5), new Vector(0, 0, 1)));
+        assertNull(outer.getBoundingBox(), "The outer collection must be unbounded");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildBVH()}.
+     */
+    @Test
+    void testBuildBVH() {
+        Sphere sph = new Sphere(1, new Point(1, 0, 0));
+        Sphere sph1 = new Sphere(1, new Point(-5, 0, 0));
+        Triangle tri = new Triangle(new Point(3, 0, 1), new Point(3, -2, -1), new Point(3, 2, -1));
+        Plane pl = new Plane(new Point(0, 0, -5), new Vector(0, 0, 1));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Some of the shapes are intersected but not all of them
+        Geometries geo = new Geometries(sph, tri, sph1).buildBVH();
+        List<Point> result = geo.findIntersections(new Ray(new Point(-3, 0, 0), new Vector(1, 0, 0)));
+        assertEquals(3, result.size(), "BVH dose not work when some of the shapes are intersected");
+        // TC02: None of the shapes is intersected
+        assertNull(geo.findIntersections(new Ray(new Point(-8, 0, 0), new Vector(0, 0, 1))),
+                "BVH dose not work when none of the shapes is intersected");
+        // TC03: An unbounded geometry in a nested collection
+        Geometries nested = new Geometries();
+        nested.add(pl, new Geometries(sph, tri, sph1));
+        nested.buildBVH();
+        result = nested.findIntersections(new Ray(new Point(1, 0, 3), new Vector(0, 0, -1)));
+        assertEquals(3, result.size(), "BVH dose not work with an unbounded geometry");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: Empty collection
+        assertNull(new Geometries().buildBVH().findIntersections(new Ray(new Point(-3, 0, 0), new Vector(1, 0, 0))),
+                "BVH dose not work when the collection is empty");
+        // TC05: All the shapes are intersected
+        result = geo.findIntersections(new Ray(new Point(-8, 0, 0), new Vector(1, 0, 0)));
+        assertEquals(5, result.size(), "BVH dose not work when all the shapes are intersected");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#getBVHStatistics()}.
+     */
+    @Test
+    void testGetBVHStatistics() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A scene large enough to be built in parallel - a row of 2000 spheres and a plane
+        Geometries geo = new Geometries(new Plane(new Point(0, 0, -5), new Vector(0, 0, 1)));
+        for (int i = 0; i < 2000; i++)
+            geo.add(new Sphere(0.25, new Point(i, 0, 0)));
+        geo.buildBVH();
+        Geometries.BVHStatistics statistics = geo.getBVHStatistics();
+        assertEquals(2001, statistics.geometries(), "Wrong number of geometries in the hierarchy");
+        assertEquals(2 * statistics.leaves() - 1, statistics.nodes(), "The tree is not binary");
+        assertTrue(statistics.depth() < 30, "The tree is not balanced");
+        assertEquals(new Point(1234, 0, 0.25),
+                geo.findClosestGeoIntersection(new Ray(new Point(1234, 0, 3), new Vector(0, 0, -1))).point,
+                "Wrong closest point in the parallel built hierarchy");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The hierarchy was not built
+        assertNull(new Geometries(new Sphere(1, new Point(0, 0, 0))).getBVHStatistics(),
+                "Statistics without a hierarchy");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildBVH(boolean)}.
+     */
+    @Test
+    void testBuildWideBVH() {
+        Sphere[] spheres = new Sphere[300];
+        Plane floor = new Plane(new Point(0, 0, -5), new Vector(0, 0, 1));
+        Geometries binary = new Geometries(floor);
+        Geometries wide = new Geometries(floor);
+        for (int i = 0; i < spheres.length; i++) {
+            spheres[i] = new Sphere(0.4, new Point(i % 20, i / 20, i % 7));
+            binary.add(spheres[i]);
+            wide.add(spheres[i]);
+        }
+        binary.buildBVH(false);
+        wide.buildBVH(true);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The wide nodes find the same intersections as the binary ones
+        for (int i = 0; i < 100; i++) {
+            Ray ray = new Ray(new Point(-3, i / 10.0, i % 9), new Vector(1, 0.13 * (i % 5), -0.05 * (i % 3)));
+            assertEquals(binary.findClosestGeoIntersection(ray), wide.findClosestGeoIntersection(ray),
+                    "Wrong closest point through the wide nodes");
+            List<Point> expected = binary.findIntersections(ray), actual = wide.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), actual == null ? 0 : actual.size(),
+                    "Wrong number of points through the wide nodes");
+            assertEquals(binary.findTransparency(ray, 20, 0.001), wide.findTransparency(ray, 20, 0.001),
+                    "Wrong transparency through the wide nodes");
+        }
+        // TC02: The wide nodes are refitted and rebuilt with the binary ones
+        wide.refitBVH(spheres[25].setCenter(new Point(5, 1, 8)));
+        assertEquals(new Point(5, 1, 8.4),
+                wide.findClosestGeoIntersection(new Ray(new Point(5, 1, 20), new Vector(0, 0, -1))).point,
+                "The refitted wide nodes miss the moved sphere");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A single geometry is a leaf at the root of the wide nodes
+        Geometries single = new Geometries(new Sphere(1, new Point(0, 0, 0))).buildBVH(true);
+        assertEquals(new Point(0, 0, 1),
+                single.findClosestGeoIntersection(new Ray(new Point(0, 0, 5), new Vector(0, 0, -1))).point,
+                "Wrong closest point of a single geometry");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#refitBVH(Intersectable...)}.
+     */
+    @Test
+    void testRefitBVH() {
+        Sphere[] spheres = new Sphere[100];
+        Geometries geo = new Geometries();
+        for (int i = 0; i < spheres.length; i++)
+            geo.add(spheres[i] = new Sphere(0.25, new Point(i, 0, 0)));
+        geo.buildBVH();
+        Ray ray = new Ray(new Point(50, 0, 3), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A sphere moves a little, the hierarchy is refitted to it without a rebuild
+        geo.refitBVH(spheres[50].setCenter(new Point(50, 0, 0.5)));
+        assertEquals(new Point(50, 0, 0.75), geo.findClosestGeoIntersection(ray).point,
+                "The refitted hierarchy misses the moved sphere");
+        Geometries.BVHStatistics statistics = geo.getBVHStatistics();
+        assertTrue(statistics.cost() > statistics.builtCost(), "The cost did not grow with the refitted boxes");
+
+        // TC02: Many spheres scatter far away, the hierarchy degrades and is rebuilt
+        for (int i = 0; i < spheres.length; i += 2)
+            spheres[i].setCenter(new Point(i, 1000 - 20 * i, 0));
+        geo.refitBVH(spheres);
+        statistics = geo.getBVHStatistics();
+        assertEquals(statistics.builtCost(), statistics.cost(), 1e-10, "The degraded hierarchy was not rebuilt");
+        assertEquals(new Point(50, 0, 0.25), geo.findClosestGeoIntersection(ray).point,
+                "Wrong closest point in the rebuilt hierarchy");
+        assertEquals(new Point(0, 1000, 0.25),
+                geo.findClosestGeoIntersection(new Ray(new Point(0, 1000, 3), new Vector(0, 0, -1))).point,
+                "Wrong closest point in the rebuilt hierarchy");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Nothing moved, the hierarchy does not change
+        geo.refitBVH();
+        assertEquals(statistics, geo.getBVHStatistics(), "The hierarchy changed without moves");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestHits(RayPacket)}.
+     */
+    @Test
+    void testFindClosestHits() {
+        Geometries geo = new Geometries(new Plane(new Point(0, 0, -5), new Vector(0, 0, 1)));
+        for (int i = 0; i < 400; i++)
+            geo.add(new Sphere(0.3, new Point(i % 20, i / 20, i % 3)));
+        geo.buildBVH();
+        Point eye = new Point(9.5, 9.5, 40);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A coherent packet (a tile of the view below the eye) finds the hits of the single rays
+        Ray[] rays = new Ray[64];
+        for (int i = 0; i < rays.length; i++)
+            rays[i] = new Ray(eye, new Vector(0.05 + 0.11 * (i % 8), 0.05 + 0.11 * (i / 8), -4));
+        RayPacket packet = new RayPacket(rays);
+        geo.findClosestHits(packet);
+        for (int i = 0; i < rays.length; i++)
+            assertEquals(geo.findClosestHit(rays[i]).getDistance(), packet.getHit(i).getDistance(), 1e-10,
+                    "Wrong hit of a ray in a coherent packet");
+        // TC02: A packet whose rays point to both sides is traced ray by ray
+        packet = new RayPacket(new Ray(eye, new Vector(1, 1, -4)), new Ray(eye, new Vector(-1, 1, -4)));
+        geo.findClosestHits(packet);
+        assertEquals(geo.findClosestHit(packet.getRay(1)).getPoint(), packet.getHit(1).getPoint(),
+                "Wrong hit of a ray in an incoherent packet");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A ray of the packet misses everything
+        packet = new RayPacket(new Ray(eye, new Vector(1, 1, -4)), new Ray(eye, new Vector(1, 1, 4)));
+        geo.findClosestHits(packet);
+        assertNotNull(packet.getHit(0), "The first ray must hit");
+        assertNull(packet.getHit(1), "The ray away from the scene must not hit");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestHits(RayStream)}.
+     */
+    @Test
+    void testFindClosestHitsOfStream() {
+        Geometries shared = new Geometries(new Sphere(1, new Point(0, 0, 0)));
+        Geometries geo = new Geometries(
+                new Plane(new Point(0, 0, -5), new Vector(0, 0, 1)),
+                new Sphere(1, new Point(-3, 0, 0)),
+                new Triangle(new Point(2, -1, 1), new Point(4, -1, 1), new Point(3, 2, 1)),
+                new TriangleMesh(new double[]{-1, 3, 0, 1, 3, 0, 0, 5, 0}, new int[]{0, 1, 2}),
+                new SphereSet(new double[]{3, -3, 0, 5, -3, 0}, new double[]{0.5, 0.5}),
+                new Instance(shared).translate(new Vector(0, 0, 3)));
+        RayStream rays = new RayStream(4);
+        for (int i = 0; i < 100; i++)
+            rays.add(new Ray(new Point(-6 + i % 10 * 1.2, -4 + i / 10 * 0.9, 10), new Vector(0.1 * (i % 3), 0, -1)),
+                    i % 7 == 0 ? 12 : Double.POSITIVE_INFINITY);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Each geometry intersects the whole stream, and the hits are those of the single rays
+        geo.findClosestHits(rays);
+        assertEquals(100, rays.size(), "The stream lost rays");
+        for (int i = 0; i < rays.size(); i++) {
+            Intersectable.Hit expected = geo.findClosestHit(rays.getRay(i), i % 7 == 0 ? 12 : Double.POSITIVE_INFINITY);
+            Intersectable.Hit actual = rays.getHit(i);
+            assertEquals(expected == null, actual == null, "Wrong hit of ray " + i);
+            if (expected != null) {
+                assertEquals(expected.getDistance(), actual.getDistance(), 1e-10, "Wrong distance of ray " + i);
+                assertEquals(expected.getNormal(), actual.getNormal(), "Wrong normal of ray " + i);
+            }
+        }
+        // TC02: The stream through a hierarchy
+        Geometries bvh = new Geometries(new Sphere(1, new Point(0, 0, 0)), new Sphere(1, new Point(5, 0, 0))).buildBVH();
+        rays.clear();
+        rays.add(new Ray(new Point(5, 0, 10), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY);
+        bvh.findClosestHits(rays);
+        assertEquals(new Point(5, 0, 1), rays.getHit(0).getPoint(), "Wrong hit through the hierarchy");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The hit is farther than the maximal distance of the ray
+        rays.clear();
+        rays.add(new Ray(new Point(5, 0, 10), new Vector(0, 0, -1)), 9);
+        bvh.findClosestHits(rays);
+        assertNull(rays.getHit(0), "The hit is farther than the maximal distance");
+        assertEquals(9, rays.getDistance(0), "The maximal distance changed without a hit");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildGrid()}.
+     */
+    @Test
+    void testBuildGrid() {
+        Sphere[] particles = new Sphere[100];
+        Sphere big = new Sphere(2, new Point(20, 0, 0));
+        big.setMaterial(new Material().setkT(0.5));
+        Geometries grid = new Geometries(new Plane(new Point(0, 0, -1), new Vector(0, 0, 1)), big);
+        for (int i = 0; i < particles.length; i++)
+            grid.add(particles[i] = new Sphere(0.25, new Point(i % 10, i / 10, 0)));
+        grid.buildGrid();
+        Ray ray = new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray hits a particle in the middle of the field
+        assertEquals(new Point(3, 4, 0.25),
+                grid.findClosestGeoIntersection(new Ray(new Point(3, 4, 5), new Vector(0, 0, -1))).point,
+                "Wrong closest point in the grid");
+        // TC02: The ray crosses a row of particles and a sphere that spans several cells,
+        // each geometry is intersected once (22 points)
+        assertEquals(22, grid.findIntersections(ray).size(), "Wrong number of points in the grid");
+        // TC03: The transparency of the sphere that spans several cells is taken once
+        assertEquals(new Double3(0.25), grid.findTransparency(new Ray(new Point(15, 0, 0), new Vector(1, 0, 0)),
+                10, 0.001), "Wrong transparency in the grid");
+        // TC04: A particle moves and the grid is rebuilt
+        particles[43].setCenter(new Point(3, 4, 1));
+        grid.buildGrid();
+        assertEquals(new Point(3, 4, 1.25),
+                grid.findClosestGeoIntersection(new Ray(new Point(3, 4, 5), new Vector(0, 0, -1))).point,
+                "The rebuilt grid misses the moved particle");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The ray passes between the particles to the unbounded plane
+        assertEquals(new Point(0.5, 0.5, -1),
+                grid.findClosestGeoIntersection(new Ray(new Point(0.5, 0.5, 5), new Vector(0, 0, -1))).point,
+                "Wrong closest point on the unbounded plane");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#cull(Frustum)}.
+     */
+    @Test
+    void testCull() {
+        Frustum frustum = new Frustum(new Point(0, 0, 10), new Point(-0.1, -0.1, 9), new Point(0.1, -0.1, 9),
+                new Point(0.1, 0.1, 9), new Point(-0.1, 0.1, 9));
+        Geometries flat = new Geometries(new Plane(new Point(0, 0, -20), new Vector(0, 0, 1)),
+                new Sphere(0.5, new Point(0, 0, 15)));
+        Geometries bvh = new Geometries(new Sphere(0.5, new Point(0, 0, 15)));
+        for (int i = -5; i <= 5; i++) {
+            flat.add(new Sphere(0.5, new Point(2 * i, 0, 0)));
+            bvh.add(new Sphere(0.5, new Point(2 * i, 0, 0)));
+        }
+        bvh.buildBVH();
+        Ray row = new Ray(new Point(-20, 0, 0), new Vector(1, 0, 0));
+        Ray axis = new Ray(new Point(0, 0, 30), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Only the sphere in the middle of the row is inside the frustum
+        assertEquals(22, flat.findIntersections(row).size(), "Wrong number of points before the culling");
+        assertEquals(2, flat.cull(frustum).findIntersections(row).size(), "Wrong culled geometries");
+        assertEquals(2, bvh.cull(frustum).findIntersections(row).size(), "Wrong culled geometries with BVH");
+        // TC02: The sphere behind the apex is culled, the unbounded plane is kept
+        assertEquals(new Point(0, 0, 0.5), flat.cull(frustum).findClosestGeoIntersection(axis).point,
+                "The sphere behind the apex was not culled");
+        assertEquals(new Point(0, 0, 0.5), bvh.cull(frustum).findClosestGeoIntersection(axis).point,
+                "The sphere behind the apex was not culled with BVH");
+        assertEquals(1, flat.cull(frustum).findIntersections(new Ray(new Point(0, 0, 30), new Vector(0, 1, -1))).size(),
+                "The unbounded plane was culled");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Too many geometries are inside the frustum for a flat loop, the hierarchy is kept
+        Geometries dense = new Geometries();
+        for (int i = 0; i < 40; i++) dense.add(new Sphere(0.01, new Point(0, 0, -i)));
+        dense.buildBVH();
+        assertSame(dense, dense.cull(frustum), "The hierarchy must not be culled into a long list");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#select(java.util.function.Predicate)}.
+     */
+    @Test
+    void testSelect() {
+        Triangle tri = new Triangle(new Point(3, 0, 1), new Point(3, -2, -1), new Point(3, 2, -1));
+        Geometries geo = new Geometries(new Geometries(new Sphere(1, new Point(1, 0, 0)), tri),
+                new Sphere(1, new Point(-5, 0, 0)));
+        Ray ray = new Ray(new Point(-8, 0, 0), new Vector(1, 0, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The spheres of the nested collections are picked, without a hierarchy
+        Geometries spheres = geo.select(geometry -> geometry instanceof Sphere);
+        assertEquals(4, spheres.findIntersections(ray).size(), "Wrong selected geometries");
+        assertNull(spheres.getBVHStatistics(), "The selection must not have a hierarchy");
+        // TC02: The selection of a collection with a hierarchy has a hierarchy
+        geo.buildBVH(true);
+        spheres = geo.select(geometry -> geometry instanceof Sphere);
+        assertEquals(2, spheres.getBVHStatistics().geometries(), "The selection has no hierarchy");
+        assertEquals(4, spheres.findIntersections(ray).size(), "Wrong selected geometries with BVH");
+        // TC03: The selection of a collection with a grid has a grid, which is not culled
+        geo.buildGrid();
+        spheres = geo.select(geometry -> geometry instanceof Sphere);
+        assertNull(spheres.getBVHStatistics(), "The selection of a grid has a hierarchy");
+        assertSame(spheres, spheres.cull(new Frustum(new Point(0, 0, 10), new Point(-0.1, -0.1, 9),
+                new Point(0.1, -0.1, 9), new Point(0.1, 0.1, 9), new Point(-0.1, 0.1, 9))), "The selection has no grid");
+        assertEquals(4, spheres.findIntersections(ray).size(), "Wrong selected geometries with a grid");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Nothing passes the filter
+        assertNull(geo.select(geometry -> false).findIntersections(ray), "The empty selection has intersections");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findClosestGeoIntersection(Ray, double)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Sphere sph = new Sphere(1, new Point(1, 0, 0));
+        Sphere sph1 = new Sphere(1, new Point(-5, 0, 0));
+        Triangle tri = new Triangle(new Point(3, 0, 1), new Point(3, -2, -1), new Point(3, 2, -1));
+        Geometries flat = new Geometries(sph, tri, sph1);
+        Geometries bvh = new Geometries(sph, tri, sph1).buildBVH();
+        Ray ray = new Ray(new Point(-3, 0, 0), new Vector(1, 0, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Several shapes are intersected - the nearest one
+        assertEquals(new Point(0, 0, 0), flat.findClosestGeoIntersection(ray).point, "Wrong closest point");
+        assertEquals(new Point(0, 0, 0), bvh.findClosestGeoIntersection(ray).point, "Wrong closest point with BVH");
+        // TC02: The nearer shapes are farther than the maximal distance
+        assertNull(flat.findClosestGeoIntersection(ray, 2), "The points are farther than the maximal distance");
+        assertNull(bvh.findClosestGeoIntersection(ray, 2), "The points are farther than the maximal distance with BVH");
+        // TC03: None of the shapes is intersected
+        ray = new Ray(new Point(-8, 0, 0), new Vector(0, 0, 1));
+        assertNull(flat.findClosestGeoIntersection(ray), "dose not work when none of the shapes is intersected");
+        assertNull(bvh.findClosestGeoIntersection(ray), "dose not work with BVH when none of the shapes is intersected");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Empty collection
+        assertNull(new Geometries().findClosestGeoIntersection(ray), "dose not work when the collection is empty");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#findTransparency(Ray, double, double)}.
+     */
+    @Test
+    void testFindTransparency() {
+        Sphere glass = new Sphere(1, new Point(1, 0, 0));
+        glass.setMaterial(new Material().setkT(0.5));
+        Sphere opaque = new Sphere(1, new Point(5, 0, 0));
+        Geometries flat = new Geometries(glass, opaque);
+        Geometries bvh = new Geometries(glass, opaque).buildBVH();
+        Ray ray = new Ray(new Point(-3, 0, 0), new Vector(1, 0, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Only the transparent sphere is before the light (2 intersections)
+        assertEquals(new Double3(0.25), flat.findTransparency(ray, 6, 0.001), "Wrong transparency");
+        assertEquals(new Double3(0.25), bvh.findTransparency(ray, 6, 0.001), "Wrong transparency with BVH");
+        // TC02: The opaque sphere blocks the light
+        assertTrue(flat.findTransparency(ray, 10, 0.001).lowerThan(0.001), "The light must be blocked");
+        assertTrue(bvh.findTransparency(ray, 10, 0.001).lowerThan(0.001), "The light must be blocked with BVH");
+        // TC03: Nothing is before the light
+        assertEquals(Double3.ONE, flat.findTransparency(ray, 1, 0.001), "Nothing blocks the light");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The ray misses all the geometries
+        assertEquals(Double3.ONE, bvh.findTransparency(new Ray(new Point(-3, 0, 0), new Vector(0, 1, 0)),
+                Double.POSITIVE_INFINITY, 0.001), "Nothing blocks the light");
+    }
+}
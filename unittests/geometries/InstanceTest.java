@@ -0,0 +1,125 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing geometries.Instance
+ *
+ * @author Shilo and Aviad
+ */
+class InstanceTest {
+    /**
+     * A shared sub-assembly - a unit sphere at the origin and a triangle on its right side
+     */
+    private final Geometries assembly = new Geometries(new Sphere(1, new Point(0, 0, 0)),
+            new Triangle(new Point(3, -1, -1), new Point(3, 1, -1), new Point(3, 0, 1)));
+
+    /**
+     * Test method for {@link geometries.Instance#findClosestHit(Ray)}.
+     */
+    @Test
+    void testFindClosestHit() {
+        Instance moved = new Instance(assembly).scale(2, 1, 1).translate(new Vector(0, 10, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray hits the scaled sphere - the distance is in world space
+        Intersectable.Hit hit = moved.findClosestHit(new Ray(new Point(-5, 10, 0), new Vector(1, 0, 0)));
+        assertEquals(3, hit.getDistance(), 1e-10, "Wrong distance to the scaled sphere");
+        assertEquals(new Point(-2, 10, 0), hit.getPoint(), "Wrong point on the scaled sphere");
+        assertEquals(new Vector(-1, 0, 0), hit.getNormal(), "Wrong normal of the scaled sphere");
+        // TC02: The normal of the ellipsoid is not the scaled normal of the sphere
+        double x = Math.sqrt(2), y = Math.sqrt(0.5);
+        hit = moved.findClosestHit(new Ray(new Point(x, 15, 0), new Vector(0, -1, 0)));
+        assertEquals(new Point(x, 10 + y, 0), hit.getPoint(), "Wrong point on the ellipsoid");
+        assertEquals(new Vector(1, 2, 0).normalize(), hit.getNormal(), "Wrong normal of the ellipsoid");
+        // TC03: The ray hits the triangle of the rotated instance
+        Instance rotated = new Instance(assembly).rotate(new Vector(0, 0, 1), 90);
+        hit = rotated.findClosestHit(new Ray(new Point(0, 5, 0), new Vector(0, -1, 0)));
+        assertEquals(new Point(0, 3, 0), hit.getPoint(), "Wrong point on the rotated triangle");
+        assertEquals(0, hit.getNormal().getX(), 1e-10, "Wrong normal of the rotated triangle");
+        assertSame(assembly, rotated.getObject(), "The instance copied the geometries");
+        // TC04: The ray misses the instance (0 points)
+        assertNull(moved.findClosestHit(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0))),
+                "The ray hits the instance at the place of the shared geometries");
+        // TC05: A collection that contains the instance finds it after it moved again
+        Geometries geometries = new Geometries(moved);
+        moved.translate(new Vector(0, 10, 0));
+        assertEquals(new Point(-2, 20, 0),
+                geometries.findClosestGeoIntersection(new Ray(new Point(-5, 20, 0), new Vector(1, 0, 0))).point,
+                "The collection misses the moved instance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The hit is beyond the maximal distance in world space
+        assertNull(moved.findClosestHit(new Ray(new Point(-5, 20, 0), new Vector(1, 0, 0)), 3),
+                "Hit beyond the maximal distance");
+        // TC12: A transform that flattens the instance
+        assertThrows(IllegalArgumentException.class, () -> new Instance(assembly).scale(1, 0, 1),
+                "Flattening transform");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#findIntersections(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        Geometries scene = new Geometries();
+        for (int i = 1; i <= 10; i++)
+            scene.add(new Instance(assembly).translate(new Vector(0, 0, 10 * i)));
+        scene.buildBVH();
+        Ray ray = new Ray(new Point(-5, 0, 40), new Vector(1, 0, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray crosses the sphere and the triangle of one of the copies (3 points)
+        List<Point> result = scene.findIntersections(ray);
+        assertEquals(3, result.size(), "Wrong number of points");
+        assertTrue(result.containsAll(List.of(new Point(-1, 0, 40), new Point(1, 0, 40), new Point(3, 0, 40))),
+                "Wrong points of the copy");
+        // TC02: The closest point in the top level hierarchy of the copies
+        assertEquals(new Point(-1, 0, 40), scene.findClosestGeoIntersection(ray).point, "Wrong closest point");
+        assertEquals(new BoundingBox(-1, -1, 9, 3, 1, 101), scene.getBoundingBox(), "Wrong box of the copies");
+        // TC03: The transparency of a shadow ray through a copy
+        assembly.findClosestGeoIntersection(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0))).geometry
+                .setMaterial(new Material().setkT(0.5));
+        assertEquals(new Double3(0.5), scene.findTransparency(ray, 5, 0.001),
+                "Wrong transparency through the copy");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance.PlacedGeometry#getNormal(Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        // the unit sphere becomes an ellipsoid along the y axis, x*x + y*y/4 = 1
+        Instance placed = new Instance(assembly).scale(2, 1, 1).rotate(new Vector(0, 0, 1), 90);
+        double x = Math.sqrt(0.5), y = Math.sqrt(2);
+        Ray ray = new Ray(new Point(-x, 5, 0), new Vector(0, -1, 0));
+        Vector normal = new Vector(-2, 1, 0).normalize();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest point on the ellipsoid has its normal in world space
+        Intersectable.GeoPoint gp = placed.findClosestGeoIntersection(ray);
+        assertEquals(new Point(-x, y, 0), gp.point, "Wrong closest point on the ellipsoid");
+        assertEquals(normal, gp.geometry.getNormal(gp.point), "Wrong normal of the closest point");
+        assertSame(assembly.findClosestGeoIntersection(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0)))
+                .geometry.getMaterial(), gp.geometry.getMaterial(), "The placed sphere must share the sphere's material");
+        // TC02: The same point and normal among all the intersections
+        List<Intersectable.GeoPoint> points = placed.findGeoIntersections(ray);
+        assertEquals(2, points.size(), "Wrong number of points on the ellipsoid");
+        Intersectable.GeoPoint top = points.get(0).point.getY() > 0 ? points.get(0) : points.get(1);
+        assertEquals(gp, top, "The closest point must be one of the intersections");
+        assertEquals(normal, top.geometry.getNormal(top.point), "Wrong normal of the intersection");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: An instance of a group that holds the instance
+        Instance nested = new Instance(new Geometries(placed)).translate(new Vector(0, 0, 5));
+        gp = nested.findClosestGeoIntersection(new Ray(new Point(-x, 5, 5), new Vector(0, -1, 0)));
+        assertEquals(new Point(-x, y, 5), gp.point, "Wrong closest point on the nested ellipsoid");
+        assertEquals(normal, gp.geometry.getNormal(gp.point), "Wrong normal of the nested ellipsoid");
+    }
+}
@@ -102,5 +102,19 @@ class PlaneTest {
                 "Ray's line out of plane");
     }
 
-
-}
\ No newline at end of file
+    /**
+     * Test method for {@link geometries.Plane#translated(Vector)}.
+     */
+    @Test
+    void testTranslated() {
+        Plane plane = new Plane(new Point(1, 0, 1), new Vector(0, 0, 1));
+        Plane moved = plane.translated(new Vector(0, 0, 2));
+        Ray ray = new Ray(new Point(0, 0, 5), new Vector(0, 0, -1));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The moved plane is crossed in its new place, with the same normal
+        assertEquals(List.of(new Point(0, 0, 3)), moved.findIntersections(ray), "Ray crosses the moved plane");
+        assertEquals(plane.getNormal(), moved.getNormal(), "The moved plane must keep its normal");
+        // TC02: The plane itself does not move
+        assertEquals(List.of(new Point(0, 0, 1)), plane.findIntersections(ray), "The original plane moved");
+    }
+}
@@ -120,4 +120,72 @@ public class PolygonTest {
               new Vector(-1,-2,1)));
       assertNull( result, "Wrong number of points");
    }
+
+   /**
+    * Test method for {@link geometries.Polygon#findIntersections(Ray)} with quadrangles.
+    */
+   @Test
+   void testFindIntersectionsQuad() {
+      // a rectangular floor (normal along the y axis) and a trapezoid wall (normal along the x axis)
+      Polygon floor = new Polygon(new Point(0, 0, 0), new Point(0, 0, 2), new Point(4, 0, 2), new Point(4, 0, 0));
+      Polygon wall = new Polygon(new Point(0, 0, 0), new Point(0, 2, 0), new Point(0, 2, 1), new Point(0, 0, 3));
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: The ray crosses the rectangle (1 point)
+      assertEquals(List.of(new Point(3, 0, 1)),
+              floor.findIntersections(new Ray(new Point(3, 1, 1), new Vector(0, -1, 0))),
+              "Ray crosses the rectangle");
+      // TC02: The ray crosses the plane of the rectangle outside it (0 points)
+      assertNull(floor.findIntersections(new Ray(new Point(5, 1, 1), new Vector(0, -1, 0))),
+              "Ray's line out of the rectangle");
+      // TC03: The ray crosses the trapezoid (1 point)
+      assertEquals(List.of(new Point(0, 1, 1)),
+              wall.findIntersections(new Ray(new Point(1, 1, 1), new Vector(-1, 0, 0))),
+              "Ray crosses the trapezoid");
+      // TC04: The ray crosses the plane of the trapezoid beyond its slanted side (0 points)
+      assertNull(wall.findIntersections(new Ray(new Point(1, 1.5, 2), new Vector(-1, 0, 0))),
+              "Ray's line out of the trapezoid");
+
+      // =============== Boundary Values Tests ==================
+      // TC11: The intersection point is on a side of the rectangle (0 points)
+      assertNull(floor.findIntersections(new Ray(new Point(4, 1, 1), new Vector(0, -1, 0))),
+              "Ray through a side of the rectangle");
+      // TC12: The intersection point is on a side of the trapezoid (0 points)
+      assertNull(wall.findIntersections(new Ray(new Point(1, 1, 2), new Vector(-1, 0, 0))),
+              "Ray through a side of the trapezoid");
+   }
+
+   /**
+    * Test method for {@link geometries.Polygon#translate(primitives.Vector)}.
+    */
+   @Test
+   void testTranslate() {
+      Polygon wall = new Polygon(new Point(0, 0, 0), new Point(0, 2, 0), new Point(0, 2, 1), new Point(0, 0, 3))
+              .translate(new Vector(1, 1, 1));
+      Triangle triangle = new Triangle(new Point(0, 0, 0), new Point(2, 0, 0), new Point(0, 2, 0))
+              .translate(new Vector(0, 0, -1));
+      // ============ Equivalence Partitions Tests ==============
+      // TC01: The ray crosses the moved trapezoid (1 point)
+      assertEquals(List.of(new Point(1, 2, 2)),
+              wall.findIntersections(new Ray(new Point(2, 2, 2), new Vector(-1, 0, 0))),
+              "Ray crosses the moved trapezoid");
+      // TC02: The ray crosses the old place of the trapezoid (0 points)
+      assertNull(wall.findIntersections(new Ray(new Point(2, 0.5, 0.5), new Vector(-1, 0, 0))),
+              "Ray crosses the old place of the trapezoid");
+      // TC03: The ray crosses the moved triangle (1 point)
+      assertEquals(List.of(new Point(0.5, 0.5, -1)),
+              triangle.findIntersections(new Ray(new Point(0.5, 0.5, 1), new Vector(0, 0, -1))),
+              "Ray crosses the moved triangle");
+      // TC04: A collection that contains the triangle finds it in its new place
+      Geometries geometries = new Geometries(triangle);
+      triangle.translate(new Vector(10, 0, 0));
+      assertEquals(new Point(10, 0, -1), triangle.getVertices().get(0), "Wrong vertex of the moved triangle");
+      assertEquals(List.of(new Point(10.5, 0.5, -1)),
+              geometries.findIntersections(new Ray(new Point(10.5, 0.5, 1), new Vector(0, 0, -1))),
+              "The collection misses the moved triangle");
+
+      // =============== Boundary Values Tests ==================
+      // TC11: The ray crosses the moved trapezoid beyond its slanted side (0 points)
+      assertNull(wall.findIntersections(new Ray(new Point(2, 2.5, 3), new Vector(-1, 0, 0))),
+              "Ray's line out of the moved trapezoid");
+   }
 }
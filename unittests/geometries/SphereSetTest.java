@@ -0,0 +1,149 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing geometries.SphereSet
+ *
+ * @author Shilo and Aviad
+ */
+class SphereSetTest {
+    /**
+     * A row of 20 small spheres along the x axis, and a larger sphere (index 20) above the middle of the row
+     */
+    private final SphereSet set = createSet();
+
+    /**
+     * Creates the set of the tests.
+     *
+     * @return the set
+     */
+    private static SphereSet createSet() {
+        double[] centers = new double[63];
+        double[] radii = new double[21];
+        for (int i = 0; i < 20; i++) {
+            centers[3 * i] = i;
+            radii[i] = 0.375;
+        }
+        centers[60] = 5;
+        centers[62] = 3;
+        radii[20] = 1;
+        return new SphereSet(centers, radii);
+    }
+
+    /**
+     * Test method for {@link geometries.SphereSet#SphereSet(double[], double[])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Correct set
+        assertEquals(21, set.getSphereCount(), "Wrong number of spheres");
+        assertEquals(new BoundingBox(-0.375, -1, -0.375, 19.375, 1, 4), set.getBoundingBox(), "Wrong box of the set");
+        // TC02: A radius is missing
+        assertThrows(IllegalArgumentException.class,
+                () -> new SphereSet(new double[]{0, 0, 0, 1, 0, 0}, new double[]{1}),
+                "Constructed a set with a missing radius");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A zero radius
+        assertThrows(IllegalArgumentException.class,
+                () -> new SphereSet(new double[]{0, 0, 0}, new double[]{0}),
+                "Constructed a set with a zero radius");
+    }
+
+    /**
+     * Test method for {@link geometries.SphereSet#findGeoIntersections(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray along the row crosses all the small spheres (40 points)
+        assertEquals(40, set.findIntersections(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0))).size(),
+                "Wrong number of points along the row");
+        // TC02: Ray crosses the large sphere and the small one below it (4 points)
+        List<Point> result = set.findIntersections(new Ray(new Point(5, 0, 10), new Vector(0, 0, -1)));
+        assertEquals(4, result.size(), "Wrong number of points");
+        assertTrue(result.containsAll(List.of(new Point(5, 0, 4), new Point(5, 0, 2),
+                new Point(5, 0, 0.375), new Point(5, 0, -0.375))), "Wrong points");
+        // TC03: Ray passes between the spheres
+        assertNull(set.findIntersections(new Ray(new Point(0.5, 0, 10), new Vector(0, 0, -1))),
+                "Ray passes between the spheres");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray tangent to a sphere
+        assertNull(set.findIntersections(new Ray(new Point(0, 0.375, 10), new Vector(0, 0, -1))),
+                "Ray tangent to a sphere must not intersect");
+    }
+
+    /**
+     * Test method for {@link geometries.SphereSet#findClosestGeoIntersection(Ray, double)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The large sphere is the closest, and its particle gives the normal
+        Intersectable.GeoPoint gp = set.findClosestGeoIntersection(new Ray(new Point(5, 0, 10), new Vector(0, 0, -1)));
+        assertEquals(new Point(5, 0, 4), gp.point, "Wrong closest point");
+        assertEquals(20, ((SphereSet.Particle) gp.geometry).getIndex(), "Wrong closest sphere");
+        assertEquals(new Vector(0, 0, 1), gp.geometry.getNormal(gp.point), "Wrong normal of the particle");
+        assertSame(set.getMaterial(), gp.geometry.getMaterial(), "The particle must share the material of the set");
+        assertThrows(UnsupportedOperationException.class, () -> gp.geometry.setMaterial(new Material()),
+                "A particle must not take a material of its own");
+        // TC02: The closest sphere is farther than the maximal distance
+        assertNull(set.findClosestGeoIntersection(new Ray(new Point(5, 0, 10), new Vector(0, 0, -1)), 5),
+                "The set is farther than the maximal distance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The ray starts at the center of a sphere
+        Intersectable.Hit hit = set.findClosestHit(new Ray(new Point(5, 0, 3), new Vector(0, 0, 1)));
+        assertEquals(1, hit.getDistance(), 1e-10, "Wrong distance from the center");
+        assertEquals(new Vector(0, 0, 1), hit.getNormal(), "Wrong normal of the hit");
+    }
+
+    /**
+     * Test method for {@link geometries.SphereSet#findTransparency(Ray, double, double)}.
+     */
+    @Test
+    void testFindTransparency() {
+        set.setMaterial(new Material().setkT(0.5));
+        Ray ray = new Ray(new Point(5, 0, 10), new Vector(0, 0, -1));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Three sphere surfaces before the light
+        assertEquals(new Double3(0.125), set.findTransparency(ray, 10, 0.001), "Wrong transparency");
+        // TC02: One sphere surface before the light
+        assertEquals(new Double3(0.5), set.findTransparency(ray, 7, 0.001), "Wrong transparency");
+    }
+
+    /**
+     * Test method for {@link geometries.SphereSet#getNormal(Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point on a small sphere and a point on the large sphere
+        assertEquals(new Vector(0, 0, 1), set.getNormal(new Point(7, 0, 0.375)), "Wrong normal of a small sphere");
+        assertEquals(new Vector(1, 0, 0), set.getNormal(new Point(6, 0, 3)), "Wrong normal of the large sphere");
+        // TC02: The normal of a closest intersection point through the plain geometry API
+        Ray ray = new Ray(new Point(5, 0, 10), new Vector(0, 0, -1));
+        Intersectable.GeoPoint gp = set.findClosestGeoIntersection(ray);
+        assertEquals(new Vector(0, 0, 1), set.getNormal(gp.point), "Wrong normal of the set at the hit point");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The particles of the same sphere are equal
+        assertEquals(gp.geometry, set.findClosestGeoIntersection(ray).geometry,
+                "The particles of the same sphere must be equal");
+        assertNotEquals(gp.geometry, set.findClosestGeoIntersection(new Ray(new Point(0, 0, 10), new Vector(0, 0, -1))).geometry,
+                "The particles of different spheres must differ");
+        assertEquals(gp, set.findClosestGeoIntersection(ray), "The points of the same hit must be equal");
+    }
+}
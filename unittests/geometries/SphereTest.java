@@ -107,4 +107,52 @@ class SphereTest {
         // TC19: Ray's line is outside, ray is orthogonal to ray start to sphere's center line
         assertNull(sphere.findIntersections(new Ray(new Point(-1, 0, 0), new Vector(0, 1, 0))),"Ray's line out of sphere");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Sphere#findClosestGeoIntersection(Ray, double)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Sphere sphere = new Sphere(1, new Point(1, 0, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the sphere - the nearer point
+        assertEquals(new Point(0, 0, 0),
+                sphere.findClosestGeoIntersection(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0))).point,
+                "Wrong closest point");
+        // TC02: Ray starts inside the sphere
+        assertEquals(new Point(2, 0, 0),
+                sphere.findClosestGeoIntersection(new Ray(new Point(1.5, 0, 0), new Vector(1, 0, 0))).point,
+                "Wrong closest point when the ray starts inside");
+        // TC03: The sphere is farther than the maximal distance
+        assertNull(sphere.findClosestGeoIntersection(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0)), 0.5),
+                "The point is farther than the maximal distance");
+        // TC04: Ray misses the sphere
+        assertNull(sphere.findClosestGeoIntersection(new Ray(new Point(-1, 0, 0), new Vector(0, 1, 0))),
+                "Ray's line out of sphere");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The point is exactly at the maximal distance
+        assertNull(sphere.findClosestGeoIntersection(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0)), 1),
+                "The maximal distance is excluded");
+    }
+
+    /**
+     * Test method for {@link geometries.Sphere#setCenter(Point)}.
+     */
+    @Test
+    void testSetCenter() {
+        Sphere sphere = new Sphere(1, new Point(0, 0, 0));
+        Geometries geometries = new Geometries(sphere, new Sphere(1, new Point(0, 5, 0)));
+        Ray ray = new Ray(new Point(20, 0, 5), new Vector(0, 0, -1));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A collection that contains the sphere finds it in its new place
+        sphere.setCenter(new Point(20, 0, 0));
+        assertEquals(new Point(20, 0, 1), geometries.findClosestGeoIntersection(ray).point,
+                "The collection misses the moved sphere");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The collection does not find the sphere in its old place
+        assertNull(geometries.findIntersections(new Ray(new Point(0, 0, 5), new Vector(0, 0, -1))),
+                "The collection finds the sphere in its old place");
+    }
+}
@@ -0,0 +1,161 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing geometries.TriangleMesh
+ *
+ * @author Shilo and Aviad
+ */
+class TriangleMeshTest {
+    /**
+     * A unit square in the plane z=0 (two triangles) and a triangle in the plane z=2 above it
+     */
+    private final TriangleMesh mesh = new TriangleMesh(
+            new double[]{0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0, 0, 0, 2, 1, 0, 2, 0, 1, 2},
+            new int[]{0, 1, 2, 0, 2, 3, 4, 5, 6});
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Correct mesh
+        assertEquals(3, mesh.getTriangleCount(), "Wrong number of triangles");
+        // TC02: Index out of the vertex buffer
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 1, 1, 0}, new int[]{0, 1, 3}),
+                "Constructed a mesh with an index out of the vertex buffer");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Indices are not triads
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 1, 1, 0}, new int[]{0, 1}),
+                "Constructed a mesh with indices that are not triads");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findGeoIntersections(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the square and the upper triangle (2 points)
+        List<Point> result = mesh.findIntersections(new Ray(new Point(0.3, 0.2, 3), new Vector(0, 0, -1)));
+        assertEquals(2, result.size(), "Wrong number of points");
+        // TC02: Ray crosses only the square (1 point)
+        result = mesh.findIntersections(new Ray(new Point(0.8, 0.6, 3), new Vector(0, 0, -1)));
+        assertEquals(List.of(new Point(0.8, 0.6, 0)), result, "Ray crosses the square");
+        // TC03: Ray misses the mesh
+        assertNull(mesh.findIntersections(new Ray(new Point(2, 2, 3), new Vector(0, 0, -1))), "Ray misses the mesh");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray through the shared edge of the square's triangles hits exactly one of them
+        assertEquals(List.of(new Point(0.5, 0.5, 0)),
+                mesh.findIntersections(new Ray(new Point(0.5, 0.5, -1), new Vector(0, 0, 1))),
+                "Ray through a shared edge must hit one triangle");
+        // TC12: Slanted ray through the shared edge, from the other side of the square
+        assertEquals(List.of(new Point(0.4, 0.4, 0)),
+                mesh.findIntersections(new Ray(new Point(0.3, 0.3, 1), new Vector(0.1, 0.1, -1))),
+                "Slanted ray through a shared edge must hit one triangle");
+        // TC13: The closest hit of a ray through the shared edge
+        assertEquals(new Point(0.5, 0.5, 0),
+                mesh.findClosestGeoIntersection(new Ray(new Point(0.5, 0.5, -1), new Vector(0, 0, 1))).point,
+                "Ray through a shared edge must have a closest hit");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findClosestGeoIntersection(Ray, double)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The upper triangle is the closest, and its face gives the normal
+        Intersectable.GeoPoint gp = mesh.findClosestGeoIntersection(new Ray(new Point(0.3, 0.2, 3), new Vector(0, 0, -1)));
+        assertEquals(new Point(0.3, 0.2, 2), gp.point, "Wrong closest point");
+        assertEquals(2, ((TriangleMesh.Face) gp.geometry).getIndex(), "Wrong closest triangle");
+        assertEquals(new Vector(0, 0, 1), gp.geometry.getNormal(gp.point), "Wrong normal of the face");
+        assertSame(mesh.getMaterial(), gp.geometry.getMaterial(), "The face must share the material of the mesh");
+        assertThrows(UnsupportedOperationException.class, () -> gp.geometry.setMaterial(new Material()),
+                "A face must not take a material of its own");
+        // TC02: The closest triangle is farther than the maximal distance
+        assertNull(mesh.findClosestGeoIntersection(new Ray(new Point(0.3, 0.2, 3), new Vector(0, 0, -1)), 0.5),
+                "The mesh is farther than the maximal distance");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findTransparency(Ray, double, double)}.
+     */
+    @Test
+    void testFindTransparency() {
+        mesh.setMaterial(new Material().setkT(0.5));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Two triangles before the light
+        assertEquals(new Double3(0.25),
+                mesh.findTransparency(new Ray(new Point(0.3, 0.2, 3), new Vector(0, 0, -1)), 10, 0.001),
+                "Wrong transparency");
+        // TC02: One triangle before the light
+        assertEquals(new Double3(0.5),
+                mesh.findTransparency(new Ray(new Point(0.3, 0.2, 3), new Vector(0, 0, -1)), 2, 0.001),
+                "Wrong transparency");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestHit(Ray)} on a mesh.
+     */
+    @Test
+    void testFindClosestHit() {
+        Geometries scene = new Geometries(mesh, new Sphere(0.1, new Point(0.3, 0.2, 2.5))).buildBVH();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The hit on the mesh records the triangle, its point and the normal of the triangle
+        Intersectable.Hit hit = scene.findClosestHit(new Ray(new Point(0.6, 0.3, 3), new Vector(0, 0, -1)));
+        assertEquals(mesh, hit.getGeometry(), "Wrong hit geometry");
+        assertEquals(2, hit.getPrimitive(), "Wrong hit triangle");
+        assertEquals(1, hit.getDistance(), 0.00001, "Wrong hit distance");
+        assertEquals(new Point(0.6, 0.3, 2), hit.getPoint(), "Wrong hit point");
+        assertEquals(new Vector(0, 0, 1), hit.getNormal(), "Wrong normal of the hit triangle");
+        assertSame(hit.getNormal(), hit.getNormal(), "The normal of the hit is not cached");
+        // TC02: The sphere in front of the mesh is the hit
+        hit = scene.findClosestHit(new Ray(new Point(0.3, 0.2, 3), new Vector(0, 0, -1)));
+        assertEquals(new Point(0.3, 0.2, 2.6), hit.getPoint(), "Wrong hit point on the sphere");
+        assertEquals(-1, hit.getPrimitive(), "A sphere has no primitives");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: No hit
+        assertNull(scene.findClosestHit(new Ray(new Point(2, 2, 3), new Vector(0, 0, -1))), "Ray misses the scene");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        // a triangle in the plane z=0 and a triangle in the plane x=0, sharing an edge on the y axis
+        TriangleMesh corner = new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1},
+                new int[]{0, 1, 2, 0, 2, 3});
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point on each triangle has the normal of its triangle
+        assertEquals(new Vector(0, 0, 1), corner.getNormal(new Point(0.2, 0.3, 0)), "Wrong normal of the first triangle");
+        assertEquals(new Vector(1, 0, 0), corner.getNormal(new Point(0, 0.3, 0.2)), "Wrong normal of the second triangle");
+        // TC02: The normal of a closest intersection point through the plain geometry API
+        Intersectable.GeoPoint gp = mesh.findClosestGeoIntersection(new Ray(new Point(0.6, 0.3, 3), new Vector(0, 0, -1)));
+        assertEquals(new Vector(0, 0, 1), mesh.getNormal(gp.point), "Wrong normal of the mesh at the hit point");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A point off the mesh has the normal of the nearest triangle
+        assertEquals(new Vector(1, 0, 0), corner.getNormal(new Point(0.2, 0.3, 0.5)), "Wrong normal of the nearest triangle");
+        // TC12: The faces of the same triangle are equal
+        assertEquals(mesh.getFace(1), mesh.getFace(1), "Faces of the same triangle must be equal");
+        assertNotEquals(mesh.getFace(1), mesh.getFace(2), "Faces of different triangles must differ");
+    }
+}
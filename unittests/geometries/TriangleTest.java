@@ -76,4 +76,33 @@ class TriangleTest {
                 new Vector(-1,-2,1)));
         assertNull( result, "Wrong number of points");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Triangle#intersect(Ray, double[])}.
+     */
+    @Test
+    void testIntersect() {
+        Triangle triangle = new Triangle(new Point(0, 0, 1), new Point(1, 0, 1), new Point(0, 1, 1));
+        double[] barycentric = new double[2];
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray hits the front of the triangle - the distance and the weights of the vertices
+        assertEquals(2, triangle.intersect(new Ray(new Point(0.25, 0.5, 3), new Vector(0, 0, -1)), barycentric),
+                0.00001, "Wrong distance");
+        assertEquals(0.25, barycentric[0], 0.00001, "Wrong weight of the second vertex");
+        assertEquals(0.5, barycentric[1], 0.00001, "Wrong weight of the third vertex");
+        // TC02: The ray hits the back of the triangle, which is culled
+        triangle.setCullBackFaces(true);
+        assertNull(triangle.findIntersections(new Ray(new Point(0.25, 0.5, 0), new Vector(0, 0, 1))),
+                "Back face must be culled");
+        // TC03: The ray hits the front of a triangle with culled back face
+        assertEquals(List.of(new Point(0.25, 0.5, 1)),
+                triangle.findIntersections(new Ray(new Point(0.25, 0.5, 3), new Vector(0, 0, -1))),
+                "Front face must not be culled");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The ray is parallel to the triangle
+        assertEquals(Double.POSITIVE_INFINITY,
+                triangle.intersect(new Ray(new Point(0, 0, 1), new Vector(1, 1, 0)), null),
+                "Ray parallel to the triangle");
+    }
+}
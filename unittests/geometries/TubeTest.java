@@ -5,6 +5,8 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -37,4 +39,39 @@ class TubeTest {
         // ensure the result is orthogonal to the Tube
         assertEquals(new Vector(0, 1, 0), result, "Tube's normal is not normal to the Tube when the point is in front of the head of the ray");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Tube#findIntersections(Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        Tube tube = new Tube(1, new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray's line is outside the tube (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(2, 2, 0), new Vector(1, 0, 1))),
+                "Ray's line out of tube");
+        // TC02: Ray starts before and crosses the tube (2 points)
+        assertEquals(List.of(new Point(-1, 0, 2), new Point(1, 0, 4)),
+                tube.findIntersections(new Ray(new Point(-2, 0, 1), new Vector(1, 0, 1))),
+                "Ray crosses tube");
+        // TC03: Ray starts inside the tube (1 point)
+        assertEquals(List.of(new Point(0, 1, 5)),
+                tube.findIntersections(new Ray(new Point(0, 0.5, 5), new Vector(0, 1, 0))),
+                "Ray from inside tube");
+        // TC04: Ray starts after the tube (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(2, 0, 0), new Vector(1, 0, 0))),
+                "Ray after tube");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray is parallel to the axis (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(0.5, 0, 0), new Vector(0, 0, 1))),
+                "Ray parallel to the axis");
+        // TC12: Ray is tangent to the tube (0 points)
+        assertNull(tube.findIntersections(new Ray(new Point(-2, 1, 0), new Vector(1, 0, 0))),
+                "Ray tangent to the tube");
+        // TC13: Ray starts on the tube and goes inside (1 point)
+        assertEquals(List.of(new Point(1, 0, 0)),
+                tube.findIntersections(new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0))),
+                "Ray from the tube inside");
+    }
+}
@@ -0,0 +1,49 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing primitives.ColorAccumulator
+ *
+ * @author Shilo and Aviad
+ */
+class ColorAccumulatorTest {
+    /**
+     * Test method for {@link primitives.ColorAccumulator#addScaled(Color, Double3)}.
+     */
+    @Test
+    void testAddScaled() {
+        Color c1 = new Color(10, 20, 30), c2 = new Color(4, 0, 8);
+        Double3 k = new Double3(0.5, 0.25, 1);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The same color as the immutable API
+        ColorAccumulator sum = new ColorAccumulator(c1).addScaled(c2, k).addScaled(c2, 2).add(c1);
+        assertEquals(c1.add(c2.scale(k), c2.scale(2), c1).toString(), sum.toColor().toString(),
+                "addScaled() gives wrong color");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A reset sum is black
+        assertEquals(Color.BLACK.toString(), sum.reset().toColor().toString(), "reset() does not give black");
+    }
+
+    /**
+     * Test method for {@link primitives.ColorAccumulator#average(int)}.
+     */
+    @Test
+    void testAverage() {
+        Color c1 = new Color(10, 20, 30), c2 = new Color(4, 0, 8);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The average of samples is the reduced sum
+        assertEquals(c1.add(c2).reduce(2).toString(), new ColorAccumulator().add(c1).add(c2).average(2).toString(),
+                "average() gives wrong color");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The average of one sample is the sample
+        assertEquals(c1.toString(), new ColorAccumulator(c1).average(1).toString(), "average() of one sample is wrong");
+        // TC12: There is no average of no samples
+        assertThrows(IllegalArgumentException.class, () -> new ColorAccumulator().average(0),
+                "average() of no samples does not throw an exception");
+    }
+}
@@ -0,0 +1,82 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing primitives.MutableVector
+ *
+ * @author Shilo and Aviad
+ */
+class MutableVectorTest {
+    /**
+     * Test method for {@link primitives.MutableVector#addScaled(Vector, double)}.
+     */
+    @Test
+    void testAddScaled() {
+        Vector l = new Vector(1, -2, 3).normalize(), n = new Vector(0, 0, 1);
+        double nl = l.dotProduct(n);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The reflection of a direction computes the same vector as the immutable API
+        MutableVector r = new MutableVector(l).addScaled(n, -2 * nl);
+        assertEquals(l.subtract(n.scale(nl).scale(2)), r.toVector(), "addScaled() gives wrong value");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The result may be zero, unlike an immutable vector
+        r.set(n).addScaled(n, -1);
+        assertEquals(0, r.lengthSquared(), "addScaled() to zero gives wrong value");
+        assertThrows(IllegalArgumentException.class, r::toVector, "A zero vector must not become immutable");
+    }
+
+    /**
+     * Test method for {@link primitives.MutableVector#setDifference(Point, Point)}.
+     */
+    @Test
+    void testSetDifference() {
+        Point p1 = new Point(1, 2, 3), p2 = new Point(-2, 4, 0.5);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The difference of two points, reusing the same vector
+        MutableVector v = new MutableVector();
+        assertEquals(p1.subtract(p2), v.setDifference(p1, p2).toVector(), "setDifference() gives wrong value");
+        assertEquals(p2.subtract(p1), v.setDifference(p2, p1).toVector(), "setDifference() gives wrong value");
+        // TC02: A point moved back by the vector
+        assertEquals(p2.subtract(p1), v.set(p2).subtract(p1).toVector(), "subtract() gives wrong value");
+    }
+
+    /**
+     * Test method for {@link primitives.MutableVector#setCrossProduct(Vector, Vector)}.
+     */
+    @Test
+    void testSetCrossProduct() {
+        Vector v1 = new Vector(1, 2, 3), v2 = new Vector(0, 3, -2);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The same vector as the immutable cross product
+        assertEquals(v1.crossProduct(v2), new MutableVector().setCrossProduct(v1, v2).toVector(),
+                "setCrossProduct() gives wrong value");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Parallel vectors give a zero vector instead of an exception
+        assertEquals(0, new MutableVector().setCrossProduct(v1, v1.scale(-2)).lengthSquared(),
+                "setCrossProduct() of parallel vectors gives wrong value");
+    }
+
+    /**
+     * Test method for {@link primitives.MutableVector#normalize()}.
+     */
+    @Test
+    void testNormalize() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The same unit vector as the immutable API
+        Vector v = new Vector(1, 2, 3);
+        MutableVector u = new MutableVector(v).normalize();
+        assertEquals(v.normalize(), u.toVector(), "normalize() gives wrong value");
+        assertEquals(1, u.length(), 1e-12, "The normalized vector is not a unit vector");
+        assertEquals(14, new MutableVector(v).dotProduct(v), "dotProduct() gives wrong value");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A zero vector cannot be normalized
+        assertThrows(ArithmeticException.class, () -> new MutableVector().normalize(),
+                "Normalizing a zero vector does not throw an exception");
+    }
+}
@@ -23,6 +23,23 @@ class PointTest {
         // =============== Boundary Values Tests ==================
     }
 
+    /**
+     * Test method for {@link primitives.Point#getXyz()}.
+     */
+    @Test
+    void testGetXyz() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The coordinates of a point made of coordinates and of a point made of a triad
+        Point p1 = new Point(1, -2, 3.5);
+        assertEquals(new Double3(1, -2, 3.5), p1.getXyz(), "getXyz() gives wrong coordinates");
+        assertEquals(p1, new Point(p1.getXyz()), "A point made of its coordinates is not the same point");
+        assertEquals(3.5, new Point(new Double3(1, -2, 3.5)).getZ(), "getZ() gives wrong coordinate");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The coordinates of a vector
+        assertEquals(new Double3(0, 0, 1), new Vector(0, 0, 1).getXyz(), "getXyz() of a vector gives wrong coordinates");
+    }
+
     /**
      * Test method for {@link .primitives.Point#Subtract(.primitives.Point)}.
      */
@@ -128,4 +128,26 @@ class VectorTest {
 
         // =============== Boundary Values Tests ==================
     }
+
+    /**
+     * Test method for {@link primitives.Vector#isNormalized()}.
+     */
+    @Test
+    void testIsNormalized() {
+        Vector v1 = new Vector(1, 2, 3);
+        Vector u = v1.normalize();
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A normalized vector is known to be normalized, and is not normalized again
+        assertFalse(v1.isNormalized(), "A vector made of coordinates is not known to be normalized");
+        assertTrue(u.isNormalized(), "The normalized vector is not known to be normalized");
+        assertSame(u, u.normalize(), "A normalized vector was normalized again");
+        // TC02: A normalized vector scaled by another factor is not normalized anymore
+        assertFalse(u.scale(2).isNormalized(), "A scaled vector is known to be normalized");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A flipped normalized vector is still normalized
+        assertTrue(u.scale(-1).isNormalized(), "The flipped normalized vector is not known to be normalized");
+        // TC12: A ray keeps its normalized direction
+        assertSame(u, new Ray(Point.ZERO, u).getDir(), "The normalized direction of a ray was normalized again");
+    }
 }
\ No newline at end of file
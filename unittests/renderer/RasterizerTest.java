@@ -0,0 +1,70 @@
+package renderer;
+
+import geometries.*;
+import geometries.Intersectable.Hit;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing renderer.Rasterizer
+ *
+ * @author Shilo and Aviad
+ */
+class RasterizerTest {
+
+    /**
+     * Test method for {@link renderer.Rasterizer#rasterize(Geometries)}.
+     */
+    @Test
+    void testRasterize() {
+        Point location = new Point(0, 0, 10);
+        Vector vTo = new Vector(0, 0, -1), vUp = new Vector(0, 1, 0), vRight = new Vector(1, 0, 0);
+        Camera camera = new Camera(location, vTo, vUp).setVPSize(8, 8).setVPDistance(10);
+        Polygon quad = new Polygon(new Point(-3.13, -2.71, -2), new Point(2.87, -3.02, -2),
+                new Point(3.21, 2.66, -2), new Point(-2.77, 3.05, -2));
+        Triangle near = new Triangle(new Point(-1.37, -1.11, 1), new Point(1.53, -0.93, 1), new Point(0.11, 1.77, 1));
+        Triangle back = new Triangle(new Point(-3.5, 1.2, 2), new Point(-1.1, 3.3, 2), new Point(-0.7, 1.4, 2))
+                .setCullBackFaces(true);
+        Triangle behind = new Triangle(new Point(-1, -1, 12), new Point(1, -1, 12), new Point(0, 1, 12));
+        Triangle crossing = new Triangle(new Point(3.3, -3.6, -1), new Point(3.9, -0.4, 12), new Point(0.6, -3.3, 3));
+        Sphere sphere = new Sphere(0.5, new Point(2.2, 2.1, 0));
+        Geometries polygons = new Geometries(quad, near, back, behind, crossing);
+        Geometries scene = new Geometries(new Geometries(quad, near, back), behind, crossing, sphere);
+        int n = 40;
+        Rasterizer rasterizer = new Rasterizer(location, vTo, vUp, vRight, 8, 8, 10, n, n);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Each pixel has the polygon that the ray through it hits first, at the same distance
+        Geometries traced = rasterizer.rasterize(scene);
+        int quadPixels = 0, nearPixels = 0, crossingPixels = 0;
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                Ray ray = camera.constructRay(n, n, j, i);
+                Hit expected = polygons.findClosestHit(ray), actual = rasterizer.getHit(ray, j, i);
+                assertEquals(expected == null, actual == null, "Wrong coverage of pixel " + j + "," + i);
+                if (expected == null) continue;
+                assertSame(expected.getGeometry(), actual.getGeometry(), "Wrong polygon of pixel " + j + "," + i);
+                assertEquals(expected.getDistance(), actual.getDistance(), 1e-9, "Wrong depth of pixel " + j + "," + i);
+                if (actual.getGeometry() == quad) quadPixels++;
+                else if (actual.getGeometry() == near) nearPixels++;
+                else if (actual.getGeometry() == crossing) crossingPixels++;
+            }
+        assertTrue(quadPixels > 0 && nearPixels > 0 && crossingPixels > 0, "A polygon was not rasterized");
+        // TC02: The sphere is left to be traced, the polygons are not
+        assertEquals(2, traced.findIntersections(new Ray(location, new Vector(2.2, 2.1, -10))).size(),
+                "The sphere must be traced");
+        assertNull(traced.findIntersections(new Ray(location, vTo)), "The polygons must not be traced");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The back face of a culled triangle is not rasterized, nor a triangle behind the camera
+        Rasterizer alone = new Rasterizer(location, vTo, vUp, vRight, 8, 8, 10, n, n);
+        alone.rasterize(new Geometries(back, behind));
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                assertNull(alone.getHit(camera.constructRay(n, n, j, i), j, i), "Wrong coverage of pixel " + j + "," + i);
+    }
+}